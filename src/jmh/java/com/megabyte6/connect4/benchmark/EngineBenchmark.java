@@ -0,0 +1,84 @@
+package com.megabyte6.connect4.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import com.megabyte6.connect4.engine.AlphaBetaEngine;
+import com.megabyte6.connect4.engine.Board;
+import com.megabyte6.connect4.engine.MoveLog;
+import com.megabyte6.connect4.engine.SearchLimits;
+import com.megabyte6.connect4.engine.SearchResult;
+import com.megabyte6.connect4.engine.TranspositionTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Board moves, hashing, the move log, the transposition table and a fixed
+ * depth search.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EngineBenchmark {
+
+    @Param({ "7x6", "20x15", "60x40" })
+    private String size;
+
+    private Board board;
+    private int column = 0;
+    private final MoveLog moveLog = new MoveLog();
+    private int moveLogIndex = 0;
+    private TranspositionTable table;
+    private long key = 0x9E3779B97F4A7C15L;
+
+    @Setup
+    public void setup() {
+        final int[] dimensions = Positions.parseSize(size);
+        board = Positions.random(dimensions[0], dimensions[1], 4, false, 0.3, 42);
+        for (int i = 0; i < 1000; i++)
+            moveLog.add(i & 1, i % dimensions[0], i % dimensions[1]);
+        table = new TranspositionTable(64);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearTable() {
+        table.clear();
+    }
+
+    @Benchmark
+    public long playAndUndo() {
+        column = board.nextPlayableColumn(column + 1);
+        if (column == -1)
+            column = board.nextPlayableColumn(0);
+        board.play(column);
+        final long key = board.key();
+        board.undo();
+        return key;
+    }
+
+    @Benchmark
+    public int moveLogGet() {
+        moveLogIndex = moveLogIndex + 1 == moveLog.size() ? 0 : moveLogIndex + 1;
+        return moveLog.getColumn(moveLogIndex) + moveLog.getRow(moveLogIndex);
+    }
+
+    @Benchmark
+    public long tableStoreAndProbe() {
+        key = key * 6364136223846793005L + 1442695040888963407L;
+        table.store(key, 1, 5, TranspositionTable.BOUND_EXACT, 3);
+        return table.probe(key);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SearchResult searchDepth8() {
+        return new AlphaBetaEngine().search(board, SearchLimits.depth(8));
+    }
+
+}
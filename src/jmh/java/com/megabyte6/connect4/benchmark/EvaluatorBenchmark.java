@@ -0,0 +1,71 @@
+package com.megabyte6.connect4.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import com.megabyte6.connect4.engine.Board;
+import com.megabyte6.connect4.engine.Evaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Scoring a half full board after a move, kept up to date by the evaluator
+ * against rescanning every line.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EvaluatorBenchmark {
+
+    @Param({ "7x6", "20x15", "60x40" })
+    private String size;
+    @Param({ "4", "6" })
+    private int winRequirement;
+    @Param({ "false", "true" })
+    private boolean boardWrapping;
+
+    private Board board;
+    private Evaluator evaluator;
+    private int column = 0;
+
+    @Setup
+    public void setup() {
+        final int[] dimensions = Positions.parseSize(size);
+        board = Positions.random(dimensions[0], dimensions[1], winRequirement, boardWrapping, 0.5, 42);
+        evaluator = new Evaluator(board);
+    }
+
+    private int nextColumn() {
+        column = board.nextPlayableColumn(column + 1);
+        if (column == -1)
+            column = board.nextPlayableColumn(0);
+        return column;
+    }
+
+    @Benchmark
+    public int incremental() {
+        final int column = nextColumn();
+        final int player = board.getSideToMove();
+        final int row = board.play(column);
+        evaluator.add(player, column, row);
+        final int score = evaluator.evaluate(player);
+        evaluator.remove(player, column, row);
+        board.undo();
+        return score;
+    }
+
+    @Benchmark
+    public int fullRecomputation() {
+        final int column = nextColumn();
+        final int player = board.getSideToMove();
+        board.play(column);
+        final int score = Evaluator.evaluateFully(board, player);
+        board.undo();
+        return score;
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.megabyte6.connect4.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import com.megabyte6.connect4.engine.Board;
+import com.megabyte6.connect4.model.Game;
+import com.megabyte6.connect4.model.Player;
+import com.megabyte6.connect4.util.Range;
+import javafx.scene.paint.Color;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Rule queries the controller makes on every move.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GameBenchmark {
+
+    @Param({ "7x6", "20x15", "60x40" })
+    private String size;
+
+    private Game game;
+    private int column = 0;
+
+    @Setup
+    public void setup() {
+        final int[] dimensions = Positions.parseSize(size);
+        game = new Game(new Player("1", Color.YELLOW), new Player("2", Color.RED),
+                dimensions[0], dimensions[1], 4, false);
+
+        final Board position = Positions.random(dimensions[0], dimensions[1], 4, false, 0.5, 42);
+        for (int i = 0; i < position.getMoveCount(); i++)
+            game.getBoard().play(position.getMoveColumn(i));
+    }
+
+    @Benchmark
+    public int findNextFreeRow() {
+        column = column + 1 == game.getColumnCount() ? 0 : column + 1;
+        return game.findNextFreeRow(column);
+    }
+
+    @Benchmark
+    public List<Integer> findFreeColumns() {
+        return game.findFreeColumns();
+    }
+
+    @Benchmark
+    public boolean isBoardFull() {
+        return game.isBoardFull();
+    }
+
+    @Benchmark
+    public int[] range() {
+        return Range.range(game.getColumnCount());
+    }
+
+}
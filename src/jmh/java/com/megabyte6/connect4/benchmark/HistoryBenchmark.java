@@ -0,0 +1,60 @@
+package com.megabyte6.connect4.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import com.megabyte6.connect4.engine.Board;
+import com.megabyte6.connect4.model.Game;
+import com.megabyte6.connect4.model.Player;
+import javafx.scene.paint.Color;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Moving through the history of a long game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HistoryBenchmark {
+
+    @Param({ "7x6", "20x15", "60x40" })
+    private String size;
+
+    private Game game;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup
+    public void setup() {
+        final int[] dimensions = Positions.parseSize(size);
+        game = new Game(new Player("1", Color.YELLOW), new Player("2", Color.RED),
+                dimensions[0], dimensions[1], 4, false);
+        // Seeking reports every piece that changed.
+        final int[] repainted = new int[1];
+        game.setOnPieceChanged((column, row, fill) -> repainted[0]++);
+
+        final Board position = Positions.random(dimensions[0], dimensions[1], 4, false, 0.9, 42);
+        for (int i = 0; i < position.getMoveCount(); i++)
+            game.playMove(position.getMoveColumn(i));
+    }
+
+    @Benchmark
+    public int seekRandomPly() {
+        final int ply = random.nextInt(game.getMoveCount() + 1);
+        game.seek(ply);
+        return game.getHistoryPointer();
+    }
+
+    @Benchmark
+    public int stepBackAndForward() {
+        game.moveHistoryPointerBack();
+        game.moveHistoryPointerForward();
+        return game.getHistoryPointer();
+    }
+
+}
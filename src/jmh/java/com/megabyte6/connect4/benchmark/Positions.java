@@ -0,0 +1,44 @@
+package com.megabyte6.connect4.benchmark;
+
+import java.util.SplittableRandom;
+import com.megabyte6.connect4.engine.Board;
+import com.megabyte6.connect4.engine.WinDetector;
+
+/**
+ * Reproducible positions for the benchmarks.
+ */
+final class Positions {
+
+    private Positions() {}
+
+    /**
+     * Plays random moves until {@code fill} of the board is covered, never
+     * making a winning move, so the game is still going at the end.
+     */
+    static Board random(int columns, int rows, int winRequirement, boolean boardWrapping, double fill,
+            long seed) {
+        final Board board = new Board(columns, rows, winRequirement, boardWrapping);
+        final WinDetector winDetector = new WinDetector(board);
+        final SplittableRandom random = new SplittableRandom(seed);
+
+        final int target = (int) (columns * rows * fill);
+        int attempts = 0;
+        while (board.getMoveCount() < target && !board.isFull() && attempts++ < columns * rows * 20) {
+            final int column = board.getPlayableColumn(random.nextInt(board.getPlayableColumnCount()));
+            final int row = board.play(column);
+            if (winDetector.isWinningMove(column, row))
+                board.undo();
+        }
+        return board;
+    }
+
+    /**
+     * @return {@code [columns, rows]} parsed from a size such as
+     *         {@code "7x6"}.
+     */
+    static int[] parseSize(String size) {
+        final String[] parts = size.split("x");
+        return new int[] { Integer.parseInt(parts[0]), Integer.parseInt(parts[1]) };
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.megabyte6.connect4.benchmark;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import com.megabyte6.connect4.util.TimingWheel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Scheduling and cancelling a timeout while many others are pending, as a
+ * clock does every move, in the timing wheel against a scheduled executor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TimingWheelBenchmark {
+
+    private static final Runnable NOTHING = () -> {
+    };
+
+    @Param({ "100", "10000", "100000" })
+    private int pending;
+
+    private TimingWheel wheel;
+    private ScheduledThreadPoolExecutor executor;
+    private long delay = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        wheel = new TimingWheel("benchmark-wheel", 1);
+        executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+
+        // Spread out over the next hour so that none run during the
+        // benchmark.
+        for (int i = 0; i < pending; i++) {
+            final long millis = TimeUnit.MINUTES.toMillis(1) + i * 36L % TimeUnit.HOURS.toMillis(1);
+            wheel.schedule(millis, NOTHING);
+            executor.schedule(NOTHING, millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        wheel.close();
+        executor.shutdownNow();
+    }
+
+    private long nextDelay() {
+        delay = (delay + 7919) % TimeUnit.MINUTES.toMillis(30);
+        return TimeUnit.MINUTES.toMillis(1) + delay;
+    }
+
+    @Benchmark
+    public boolean timingWheel() {
+        return wheel.schedule(nextDelay(), NOTHING).cancel();
+    }
+
+    @Benchmark
+    public boolean scheduledExecutor() {
+        final ScheduledFuture<?> future = executor.schedule(NOTHING, nextDelay(), TimeUnit.MILLISECONDS);
+        return future.cancel(false);
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.megabyte6.connect4.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import com.megabyte6.connect4.engine.Board;
+import com.megabyte6.connect4.engine.WinDetector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Win checks for the last move of a half full board. This replaces the old
+ * WinChecker benchmark target: WinDetector is what the game now calls after
+ * every move.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WinDetectorBenchmark {
+
+    @Param({ "7x6", "20x15", "60x40" })
+    private String size;
+    @Param({ "4", "6" })
+    private int winRequirement;
+    @Param({ "false", "true" })
+    private boolean boardWrapping;
+
+    private WinDetector winDetector;
+    private int[] columns;
+    private int[] rows;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        final int[] dimensions = Positions.parseSize(size);
+        final Board board = Positions.random(dimensions[0], dimensions[1], winRequirement, boardWrapping,
+                0.5, 42);
+        winDetector = new WinDetector(board);
+
+        // Check every piece on the board in turn. Replaying the moves gives
+        // the row each one landed in.
+        columns = new int[board.getMoveCount()];
+        rows = new int[board.getMoveCount()];
+        final Board replay = new Board(dimensions[0], dimensions[1], winRequirement, boardWrapping);
+        for (int i = 0; i < board.getMoveCount(); i++) {
+            columns[i] = board.getMoveColumn(i);
+            rows[i] = replay.play(columns[i]);
+        }
+    }
+
+    @Benchmark
+    public boolean isWinningMove() {
+        index = index + 1 == columns.length ? 0 : index + 1;
+        return winDetector.isWinningMove(columns[index], rows[index]);
+    }
+
+    @Benchmark
+    public boolean findWin() {
+        index = index + 1 == columns.length ? 0 : index + 1;
+        return winDetector.findWin(columns[index], rows[index]);
+    }
+
+}
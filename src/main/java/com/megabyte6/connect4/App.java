@@ -1,11 +1,15 @@
 package com.megabyte6.connect4;
 
 import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import com.megabyte6.connect4.model.Player;
 import com.megabyte6.connect4.model.Settings;
+import com.megabyte6.connect4.util.PhaseTimer;
 import com.megabyte6.connect4.util.SceneManager;
+import com.megabyte6.connect4.util.Scheduler;
 import javafx.application.Application;
-import javafx.concurrent.Task;
 import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
@@ -31,48 +35,79 @@ public class App extends Application {
     private static Settings settings;
     private static final Path settingsPath = Path.of("config.json");
 
+    // Run with -Dconnect4.startupTimes=true to see where startup goes.
+    private static final PhaseTimer startup = new PhaseTimer();
+    // Startup work that doesn't need the FX thread.
+    private static final ExecutorService startupExecutor = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "startup");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static CompletableFuture<Settings> settingsLoad;
+    private static CompletableFuture<Image> iconLoad;
+    private static CompletableFuture<Void> startViewLoad;
+    private static CompletableFuture<Void> otherViewsLoad;
+
     public static void main(String[] args) {
-        settings = Settings.loadElseDefault(settingsPath);
+        // Neither needs the toolkit, so they run while it starts.
+        settingsLoad = CompletableFuture.supplyAsync(
+                () -> startup.time("settings", () -> Settings.loadElseDefault(settingsPath)), startupExecutor);
+        CompletableFuture.runAsync(() -> startup.time("mapper warm-up", Settings::warmUp), startupExecutor);
 
         launch(args);
     }
 
     @Override
-    public void start(Stage primaryStage) {
-        SceneManager.init(primaryStage, "Start", BACKGROUND_COLOR);
+    public void init() {
+        // The toolkit is running from here, so images and views can be
+        // loaded while the FX thread gets to start.
+        startup.mark("toolkit");
+        iconLoad = CompletableFuture.supplyAsync(
+                () -> startup.time("icon", () -> new Image("icon.png")), startupExecutor);
+        startViewLoad = startup.time("preload Start", SceneManager.preload("Start"));
+        // Everything that's opened from here on.
+        otherViewsLoad = startup.time("preload other views",
+                SceneManager.preload("Game", "GameFinished", "dialog/Confirm", "dialog/TextPrompt", "Settings"));
+    }
 
-        primaryStage.getIcons().add(new Image("icon.png"));
-        primaryStage.setTitle("Connect 4");
-        primaryStage.show();
+    @Override
+    public void start(Stage primaryStage) {
+        startup.time("start", () -> {
+            settings = settingsLoad.join();
+            // Nothing can be shown until this is ready anyway.
+            startViewLoad.join();
+
+            SceneManager.init(primaryStage, "Start", BACKGROUND_COLOR);
+            primaryStage.getIcons().add(iconLoad.join());
+            primaryStage.setTitle("Connect 4");
+            primaryStage.show();
+        });
+        startup.mark("shown");
+        startupExecutor.shutdown();
+
+        if (Boolean.getBoolean("connect4.startupTimes"))
+            // The other views may still be loading, so wait for them to be
+            // in the report.
+            otherViewsLoad.thenRun(() -> System.out.println(startup.report()));
     }
 
     @Override
     public void stop() {
         writeSettings();
+
+        // Run with -Dconnect4.schedulerStats=true to see how timers kept up.
+        if (Boolean.getBoolean("connect4.schedulerStats"))
+            System.out.println(Scheduler.getStats());
     }
 
-    public static void delay(long millis, @NonNull Runnable runAfter) {
-        if (millis < 0)
-            throw new IllegalArgumentException("Delay time cannot be negative.");
-
-        final Task<Void> sleep = new Task<>() {
-            @Override
-            protected Void call() {
-                try {
-                    Thread.sleep(millis);
-                } catch (InterruptedException e) {
-                    System.err.println("Sleep interrupted.");
-                    e.printStackTrace();
-                } catch (IllegalArgumentException e) {
-                    throw new IllegalArgumentException(
-                            "Delay time cannot be negative.", e.fillInStackTrace());
-                }
-                return null;
-            }
-        };
-        sleep.setOnSucceeded(event -> runAfter.run());
-
-        new Thread(sleep).start();;
+    /**
+     * Runs {@code runAfter} on the FX thread once {@code millis} have
+     * passed.
+     *
+     * @return A handle that can cancel it.
+     */
+    public static Scheduler.Handle delay(long millis, @NonNull Runnable runAfter) {
+        return Scheduler.schedule(millis, runAfter);
     }
 
     public static void writeSettings() {
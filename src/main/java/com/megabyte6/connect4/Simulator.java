@@ -0,0 +1,72 @@
+package com.megabyte6.connect4;
+
+import java.nio.file.Path;
+import java.util.function.Supplier;
+import com.megabyte6.connect4.engine.Policy;
+import com.megabyte6.connect4.engine.Simulation;
+import com.megabyte6.connect4.model.Settings;
+
+/**
+ * Headless entry point that plays lots of games between two policies on the
+ * board from {@code config.json} and prints how they went. Nothing is shown
+ * on screen, so it can run without a display.
+ * <p>
+ * Arguments: {@code [games] [player1Policy] [player2Policy] [threads] [seed]}
+ * <p>
+ * Policies are {@code random}, {@code greedy} (takes and blocks immediate
+ * wins) or {@code alphabeta:<depth>}.
+ */
+public class Simulator {
+
+    public static void main(String[] args) {
+        final long games = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        final String player1 = args.length > 1 ? args[1] : "random";
+        final String player2 = args.length > 2 ? args[2] : "random";
+        final int threads = args.length > 3
+                ? Integer.parseInt(args[3])
+                : Runtime.getRuntime().availableProcessors();
+        final long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+
+        final Settings settings = Settings.loadElseDefault(Path.of("config.json"));
+        final Simulation simulation = new Simulation(
+                settings.getColumnCount(),
+                settings.getRowCount(),
+                settings.getWinRequirement(),
+                settings.isBoardWrappingEnabled(),
+                settings.isObstaclesEnabled() ? settings.getNumOfObstacles() : 0,
+                parsePolicy(player1),
+                parsePolicy(player2));
+
+        System.out.printf("Playing %d games of %s vs %s on a %dx%d board (%d in a row%s%s) with %d threads.%n",
+                games, player1, player2, settings.getColumnCount(), settings.getRowCount(),
+                settings.getWinRequirement(),
+                settings.isBoardWrappingEnabled() ? ", wrapping" : "",
+                settings.isObstaclesEnabled() ? ", " + settings.getNumOfObstacles() + " obstacles" : "",
+                threads);
+
+        final Simulation.Result result = simulation.run(games, threads, seed);
+
+        System.out.printf("%-20s %.0f%n", "games/sec", result.gamesPerSecond());
+        System.out.printf("%-20s %.2f%%%n", "first player wins", result.player1WinRate() * 100);
+        System.out.printf("%-20s %.2f%%%n", "second player wins", result.player2WinRate() * 100);
+        System.out.printf("%-20s %.2f%%%n", "draws", result.drawRate() * 100);
+        System.out.printf("%-20s %.2f moves%n", "average length", result.averageGameLength());
+        System.out.printf("%-20s %d%n", "seed", seed);
+    }
+
+    private static Supplier<Policy> parsePolicy(String name) {
+        if (name.equals("random"))
+            return Policy::random;
+        if (name.equals("greedy"))
+            return Policy::greedy;
+        if (name.startsWith("alphabeta:")) {
+            final int depth = Integer.parseInt(name.substring("alphabeta:".length()));
+            if (depth < 1)
+                throw new IllegalArgumentException("Search depth must be positive.");
+            return () -> Policy.alphaBeta(depth);
+        }
+        throw new IllegalArgumentException("Unknown policy \"" + name
+                + "\". Use random, greedy or alphabeta:<depth>.");
+    }
+
+}
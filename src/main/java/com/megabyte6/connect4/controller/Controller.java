@@ -4,4 +4,15 @@ public interface Controller {
 
     void setDisable(boolean disabled);
 
+    /**
+     * Puts the view in the state it should be in when it's shown. Called on
+     * the FX thread every time the view is about to be shown, including the
+     * first, so that views can be loaded ahead of time and shown again
+     * instead of being loaded again. Anything that has to be made on the FX
+     * thread, such as a tooltip, belongs here rather than in
+     * {@code initialize}.
+     */
+    default void reset() {
+    }
+
 }
@@ -1,42 +1,65 @@
 package com.megabyte6.connect4.controller;
 
-import static com.megabyte6.connect4.util.Range.range;
 import static javafx.util.Duration.millis;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Objects;
-import java.util.stream.Stream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import com.megabyte6.connect4.App;
 import com.megabyte6.connect4.controller.dialog.ConfirmController;
+import com.megabyte6.connect4.engine.AlphaBetaEngine;
+import com.megabyte6.connect4.engine.Board;
+import com.megabyte6.connect4.engine.BookEngine;
+import com.megabyte6.connect4.engine.Engine;
+import com.megabyte6.connect4.engine.MctsEngine;
+import com.megabyte6.connect4.engine.OpeningBook;
+import com.megabyte6.connect4.engine.ParallelSearch;
+import com.megabyte6.connect4.engine.Ponderer;
+import com.megabyte6.connect4.engine.SearchLimits;
+import com.megabyte6.connect4.engine.SearchProgress;
+import com.megabyte6.connect4.engine.SearchResult;
+import com.megabyte6.connect4.engine.TranspositionTable;
 import com.megabyte6.connect4.model.Game;
 import com.megabyte6.connect4.model.GamePiece;
 import com.megabyte6.connect4.model.Player;
-import com.megabyte6.connect4.util.Position;
+import com.megabyte6.connect4.model.Settings;
+import com.megabyte6.connect4.render.BoardRenderer;
+import com.megabyte6.connect4.render.DropAnimator;
+import com.megabyte6.connect4.util.CoalescedUpdater;
 import com.megabyte6.connect4.util.SceneManager;
-import com.megabyte6.connect4.util.WinChecker;
-import javafx.animation.Interpolator;
-import javafx.animation.KeyFrame;
-import javafx.animation.KeyValue;
-import javafx.animation.Timeline;
-import javafx.beans.binding.DoubleBinding;
-import javafx.beans.property.DoubleProperty;
+import com.megabyte6.connect4.util.Scheduler;
+import javafx.concurrent.Task;
+import javafx.event.Event;
 import javafx.fxml.FXML;
 import javafx.geometry.Bounds;
-import javafx.geometry.Dimension2D;
+import javafx.geometry.Point2D;
 import javafx.scene.Node;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.Slider;
+import javafx.scene.control.Tooltip;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.Pane;
-import javafx.scene.layout.StackPane;
-import javafx.scene.shape.Circle;
-import javafx.scene.shape.Line;
+import javafx.scene.layout.Region;
 
 public class GameController implements Controller {
 
-    private final Game game = new Game(
-            App.getPlayer1(), App.getPlayer2(),
-            App.getSettings().getColumnCount(), App.getSettings().getRowCount());
+    // Engine searches run here so the FX thread never waits on them.
+    private static final ExecutorService engineExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "engine");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Kept between games because allocating it isn't free.
+    private static TranspositionTable transpositionTable;
+    private static OpeningBook openingBook;
+    private static Path openingBookPath;
+
+    // A new one for every game. The view is reused between games.
+    private Game game;
 
     @FXML
     private AnchorPane root;
@@ -44,10 +67,22 @@ public class GameController implements Controller {
     @FXML
     private Pane markerContainer;
     private GamePiece marker;
-    private final DoubleBinding[] markerBindings = new DoubleBinding[game.getColumnCount()];
+    // Faint piece over the column the engine would play for the person
+    // whose turn it is.
+    private GamePiece hint;
+    private int hintColumn = 0;
 
     @FXML
     private Pane gameBoard;
+    private BoardRenderer boardRenderer;
+    // Everything on the board is placed from this, rather than bound to the
+    // board's size, so that a resize is one pass over the board.
+    private double cellSize = 0;
+    // Set when the board has to be laid out again. Resizes are gathered up
+    // and laid out once per pulse, after the scene's own layout.
+    private boolean layoutPending = true;
+    private final Runnable layoutPass = this::layoutBoard;
+    private DropAnimator dropAnimator;
 
     @FXML
     private Label player1Score;
@@ -58,165 +93,206 @@ public class GameController implements Controller {
     @FXML
     private Label player2Score;
 
+    @FXML
+    private Label analysisLabel;
+    // Search threads report far more often than the screen can show.
+    private final CoalescedUpdater<SearchProgress> progressUpdater = new CoalescedUpdater<>(this::showProgress);
+
+    @FXML
+    private Button backButton;
+    @FXML
+    private Button currentMoveButton;
+    @FXML
+    private Button forwardButton;
+    @FXML
+    private Slider historySlider;
+    // Set while the slider is being moved to match the game so that it
+    // doesn't seek.
+    private boolean updatingHistorySlider = false;
+
+    private Scheduler.Handle controlsUnlock;
+
+    // Bumped whenever a search is started or cancelled so that results from
+    // stale searches are ignored.
+    private int searchId = 0;
+    private boolean searching = false;
+    // Plays for player 2 when the computer opponent is enabled.
+    private Engine opponentEngine;
+    // Searches on the computer's behalf during the other player's turn.
+    private Ponderer ponderer;
+
     @FXML
     private void initialize() {
-        // If player 1 won last game, make player 2 the starting player.
-        if (App.getWinner().equals(App.getPlayer1())
-                && game.getCurrentPlayer().equals(App.getPlayer1()))
-            game.swapTurns();
+        // Lay out the board whenever the space for it changes.
+        final Region gameBoardContainer = (Region) gameBoard.getParent();
+        gameBoardContainer.widthProperty().addListener((observable, oldValue, newValue) -> layoutPending = true);
+        gameBoardContainer.heightProperty().addListener((observable, oldValue, newValue) -> layoutPending = true);
+        markerContainer.heightProperty().addListener((observable, oldValue, newValue) -> layoutPending = true);
+        root.sceneProperty().addListener((observable, oldScene, newScene) -> {
+            if (oldScene != null)
+                oldScene.removePostLayoutPulseListener(layoutPass);
+            if (newScene != null)
+                newScene.addPostLayoutPulseListener(layoutPass);
+            // Nothing should keep running once the game is off screen.
+            else if (game != null)
+                stopGame();
+        });
 
-        App.setWinner(Player.NONE.get());
+        dropAnimator = new DropAnimator(root);
 
-        // Initialize gameBoard width and height.
-        final StackPane gameBoardContainer = (StackPane) gameBoard.getParent();
+        // Initialize marker. It's placed once the board is laid out.
+        marker = new GamePiece();
 
-        gameBoardContainer.widthProperty().addListener((observable, oldValue, newValue) -> handleWindowSizeChanged(
-                new Dimension2D(newValue.doubleValue(), gameBoardContainer.getHeight())));
-        gameBoardContainer.heightProperty().addListener((observable, oldValue, newValue) -> handleWindowSizeChanged(
-                new Dimension2D(gameBoardContainer.getWidth(), newValue.doubleValue())));
+        // Initialize hint.
+        hint = new GamePiece();
+        hint.setOpacity(0.35);
+        hint.setVisible(false);
 
-        // Give the board a color.
-        gameBoard.setBackground(Background.fill(App.getSettings().getBoardColor()));
+        markerContainer.getChildren().addAll(hint, marker);
 
-        // Draw horizontal grid lines.
-        for (int i : range(game.getRowCount() + 1)) {
-            final double multiplier = ((double) i) / game.getRowCount();
-            final DoubleBinding y = gameBoard.heightProperty().multiply(multiplier);
+        // Set up key listeners.
+        markerContainer.setOnMouseMoved(event -> updateMarkerPosition(event.getX()));
 
-            final Line line = new Line();
-            line.setStroke(App.getSettings().getLineColor());
-            line.startYProperty().bind(y);
-            line.endXProperty().bind(gameBoard.widthProperty());
-            line.endYProperty().bind(y);
+        gameBoard.setOnMouseMoved(event -> updateMarkerPosition(event.getX()));
 
-            gameBoard.getChildren().add(line);
-        }
-        // Draw vertical grid lines.
-        for (int i : range(game.getColumnCount() + 1)) {
-            final double multiplier = ((double) i) / game.getColumnCount();
-            final DoubleBinding x = gameBoard.widthProperty().multiply(multiplier);
-
-            final Line line = new Line();
-            line.setStroke(App.getSettings().getLineColor());
-            line.startXProperty().bind(x);
-            line.endXProperty().bind(x);
-            line.endYProperty().bind(gameBoard.heightProperty());
-
-            gameBoard.getChildren().add(line);
-        }
+        root.setOnMouseClicked(event -> placePiece(game.getSelectedColumn()));
+
+        // Clicking the slider shouldn't drop a piece.
+        historySlider.setOnMouseClicked(Event::consume);
+        historySlider.valueProperty().addListener((observable, oldValue, newValue) -> {
+            if (updatingHistorySlider)
+                return;
+            // Pieces still falling would land on the board being shown.
+            dropAnimator.finishAll();
+            game.seek((int) Math.round(newValue.doubleValue()));
+            requestEngineMove();
+        });
+
+        root.setOnKeyPressed(event -> {
+            if (event.isShortcutDown())
+                switch (event.getCode()) {
+                    case Q -> handleReturnToStartScreen();
+                    case N -> handleNewGame();
+                    default -> {
+                    }
+                }
+        });
+    }
 
-        // Create GamePieces.
-        final DoubleBinding cellSizeBinding = gameBoard.heightProperty().divide(game.getRowCount());
-        final int border = 5;
-        final DoubleBinding radiusBinding = cellSizeBinding.divide(2).subtract(border);
-        for (int col : range(game.getColumnCount())) {
-            final double xMultiplier = ((double) col) / game.getColumnCount();
-            final DoubleBinding xOffset = cellSizeBinding.divide(2);
+    /**
+     * Starts a new game with the current settings. The view may have shown
+     * a game before.
+     */
+    @Override
+    public void reset() {
+        if (game != null)
+            stopGame();
+
+        // Tooltips are windows, which have to be made on the FX thread, and
+        // the FXML may have been loaded on another one.
+        if (historySlider.getTooltip() == null) {
+            backButton.setTooltip(new Tooltip("Go back"));
+            currentMoveButton.setTooltip(new Tooltip("Return to the current move"));
+            forwardButton.setTooltip(new Tooltip("Go forward"));
+            historySlider.setTooltip(new Tooltip("Scrub through the game"));
+        }
 
-            final DoubleBinding xBinding = gameBoard.widthProperty()
-                    .multiply(xMultiplier).add(xOffset);
+        final Settings settings = App.getSettings();
+        game = new Game(
+                App.getPlayer1(), App.getPlayer2(),
+                settings.getColumnCount(), settings.getRowCount(),
+                settings.getWinRequirement(), settings.isBoardWrappingEnabled());
+
+        opponentEngine = settings.isComputerOpponentEnabled() ? createEngine() : null;
+        App.getPlayer2().setEngine(opponentEngine);
+        ponderer = opponentEngine != null && settings.isPonderingEnabled()
+                ? new Ponderer(opponentEngine, engineExecutor)
+                : null;
+        if (opponentEngine != null)
+            opponentEngine.setProgressListener(progressUpdater::submit);
+        analysisLabel.setText("Thinking...");
+        analysisLabel.setVisible(opponentEngine != null);
+        analysisLabel.setManaged(opponentEngine != null);
 
-            for (int row : range(game.getRowCount())) {
-                final double yMultiplier = ((double) row) / game.getRowCount();
-                final DoubleBinding yOffset = cellSizeBinding.divide(2);
+        // If player 1 won last game, make player 2 the starting player.
+        if (App.getWinner().equals(App.getPlayer1())
+                && game.getCurrentPlayer().equals(App.getPlayer1()))
+            game.swapTurns();
 
-                final DoubleBinding yBinding = gameBoard.heightProperty()
-                        .multiply(yMultiplier).add(yOffset);
+        App.setWinner(Player.NONE.get());
 
-                final GamePiece blankPiece = new GamePiece();
-                blankPiece.layoutXProperty().bind(xBinding);
-                blankPiece.layoutYProperty().bind(yBinding);
-                blankPiece.radiusProperty().bind(radiusBinding);
-                blankPiece.setFill(App.BACKGROUND_COLOR);
-                blankPiece.setStroke(App.getSettings().getLineColor());
+        // Give the board a color.
+        gameBoard.setBackground(Background.fill(settings.getBoardColor()));
 
-                game.setGamePiece(blankPiece, col, row);
-            }
-        }
+        // Draw the grid and pieces. Big boards get a canvas instead of a
+        // node per cell.
+        gameBoard.getChildren().clear();
+        boardRenderer = BoardRenderer.create(gameBoard, game.getColumnCount(), game.getRowCount(),
+                settings.getLineColor(), App.BACKGROUND_COLOR);
+        game.setOnPieceChanged(boardRenderer::setFill);
+        dropAnimator.setSpeed(settings.getAnimationSpeed());
 
         // Add obstacles.
-        if (App.getSettings().isObstaclesEnabled()) {
-            final int numOfObstacles = App.getSettings().getNumOfObstacles();
+        if (settings.isObstaclesEnabled()) {
+            final int numOfObstacles = settings.getNumOfObstacles();
             for (int i = 0; i < numOfObstacles; i++) {
                 // Randomly choose a column that isn't full.
-                int column, row;
-                do {
-                    column = (int) (Math.random() * game.getColumnCount());
-                    row = game.findNextFreeRow(column);
-                } while (row == -1);
-
-                final GamePiece selectedPiece = game.getGamePiece(column, row);
-                selectedPiece.setOwner(Player.OBSTACLE.get());
-                selectedPiece.setFill(App.getSettings().getObstacleColor());
-            }
-        }
-
-        // Draw GamePieces.
-        Stream.of(game.getGameBoard())
-                .flatMap(Stream::of)
-                .filter(Objects::nonNull)
-                .forEach(gameBoard.getChildren()::add);
+                final int column = game.findRandomFreeColumn();
+                if (column == -1)
+                    break;
+                final int row = game.placeObstacle(column);
 
-        // Initialize marker container.
-        markerContainer.maxWidthProperty().bind(gameBoard.widthProperty());
-
-        // Define marker locations
-        final DoubleBinding offset = cellSizeBinding.divide(2);
-        for (int column : range(game.getColumnCount())) {
-            final double multiplier = ((double) column) / game.getColumnCount();
-
-            markerBindings[column] = markerContainer.widthProperty()
-                    .multiply(multiplier).add(offset);
+                boardRenderer.setFill(column, row, settings.getObstacleColor());
+            }
         }
 
-        // Initialize marker.
-        marker = new GamePiece();
-        marker.layoutXProperty().bind(markerBindings[game.getSelectedColumn()]);
-        marker.layoutYProperty().bind(markerContainer.heightProperty().divide(2));
-        marker.radiusProperty().bind(radiusBinding);
         marker.setFill(game.getCurrentPlayer().getColor());
-
-        markerContainer.getChildren().add(marker);
+        hint.setVisible(false);
+        hintColumn = 0;
+        // The new board is laid out on the next pulse.
+        cellSize = 0;
+        layoutPending = true;
 
         // Initialize labels.
         updatePlayerScoreLabels();
         updateCurrentTurnLabel();
+        updateHistorySlider();
         // Initialize timer.
-        if (App.getSettings().isTimerEnabled())
+        if (settings.isTimerEnabled())
             resetTimer();
+        else
+            timerLabel.setText("Time left: 00:00");
 
-        // Set up key listeners.
-        markerContainer.setOnMouseMoved(event -> updateMarkerPosition(event.getX()));
-
-        gameBoard.setOnMouseMoved(event -> updateMarkerPosition(event.getX()));
-
-        root.setOnMouseClicked(event -> placePiece(game.getSelectedColumn()));
+        root.setDisable(false);
+        root.setOpacity(1);
+        root.requestFocus();
 
-        root.setOnKeyPressed(event -> {
-            if (event.isShortcutDown())
-                switch (event.getCode()) {
-                    case Q -> handleReturnToStartScreen();
-                    case N -> handleNewGame();
-                    default -> {
-                    }
-                }
-        });
+        // The computer may be the starting player.
+        requestEngineMove();
+    }
 
-        root.requestFocus();
+    /**
+     * Stops everything the game has running in the background.
+     */
+    private void stopGame() {
+        cancelEngineSearch();
+        progressUpdater.clear();
+        if (controlsUnlock != null)
+            controlsUnlock.cancel();
+        if (game.getTimer() != null)
+            game.getTimer().stop();
+        dropAnimator.finishAll();
     }
 
     private boolean checkForWin() {
-        final var lastMove = game.getLastMove();
-        if (lastMove == null)
+        final int lastMove = game.getHistoryPointer();
+        if (lastMove < 0)
             return false;
-        final Player player = lastMove.a();
-        final int column = lastMove.b();
-        final int row = lastMove.c();
-
-        final WinChecker winChecker = new WinChecker(game.getGameBoard(), player, new Position(column, row),
-                App.getSettings().getWinRequirement(), App.getSettings().isBoardWrappingEnabled());
+        final Player player = game.getMovePlayer(lastMove);
+        final int column = game.getMoveColumn(lastMove);
+        final int row = game.getMoveRow(lastMove);
 
-        if (winChecker.findWinPosition() == null)
+        if (!game.getWinDetector().isWinningMove(column, row))
             return false;
 
         App.setWinner(player);
@@ -224,11 +300,7 @@ public class GameController implements Controller {
     }
 
     private boolean checkForTie() {
-        for (int i : range(game.getColumnCount())) {
-            if (game.findNextFreeRow(i) != -1)
-                return false;
-        }
-        return true;
+        return game.isBoardFull();
     }
 
     private void gameWon() {
@@ -261,8 +333,7 @@ public class GameController implements Controller {
         if (game.isPaused())
             return;
 
-        final double columnWidth = gameBoard.getMaxWidth() / game.getColumnCount();
-        final int mouseColumn = (int) Math.floor(mouseXPos / columnWidth);
+        final int mouseColumn = (int) Math.floor(mouseXPos / cellSize);
 
         // If the marker is already there, don't move it.
         if (mouseColumn == game.getSelectedColumn())
@@ -272,14 +343,14 @@ public class GameController implements Controller {
     }
 
     private void moveMarkerToIndex(int index) {
-        if (index < 0 || index >= markerBindings.length)
+        if (game.columnIsOutOfBounds(index))
             return;
         game.setSelectedColumn(index);
-        updateMarkerBindings();
+        marker.setLayoutX(getColumnCenter(game.getSelectedColumn()));
     }
 
-    private void updateMarkerBindings() {
-        marker.layoutXProperty().bind(markerBindings[game.getSelectedColumn()]);
+    private double getColumnCenter(int column) {
+        return (column + 0.5) * cellSize;
     }
 
     private void placePiece(int column) {
@@ -289,8 +360,19 @@ public class GameController implements Controller {
             SceneManager.popup("Please return to the current move.");
             return;
         }
+        // Wait for the computer to make its move.
+        if (game.getCurrentPlayer().isComputer())
+            return;
+
+        dropPiece(column);
+    }
+
+    private void dropPiece(int column) {
+        if (game.isGameOver())
+            return;
 
-        final int row = game.findNextFreeRow(column);
+        final Player player = game.getCurrentPlayer();
+        final int row = game.playMove(column);
 
         // Column is full.
         if (row == -1)
@@ -298,16 +380,16 @@ public class GameController implements Controller {
 
         // Prevent the user from accidentally dropping their opponent's piece.
         game.setControlsLocked(true);
-        App.delay(500, () -> game.setControlsLocked(false));
-
-        game.addMoveToHistory(game.getCurrentPlayer(), column, row);
+        // A quick reply shouldn't cut the lock for its own move short.
+        if (controlsUnlock != null)
+            controlsUnlock.cancel();
+        controlsUnlock = App.delay(500, () -> game.setControlsLocked(false));
 
-        final GamePiece selectedPiece = game.getGamePiece(column, row);
-        selectedPiece.setOwner(game.getCurrentPlayer());
-        selectedPiece.setFill(App.BACKGROUND_COLOR);
-        playDroppingAnimation(marker, selectedPiece, game.getCurrentPlayer());
+        boardRenderer.setFill(column, row, App.BACKGROUND_COLOR);
+        playDroppingAnimation(marker, column, row, player);
 
-        swapTurns();
+        updateTurn();
+        updateHistorySlider();
 
         if (checkForWin()) {
             gameWon();
@@ -317,61 +399,207 @@ public class GameController implements Controller {
             gameTie();
             return;
         }
+
+        requestEngineMove();
     }
 
-    private void playDroppingAnimation(GamePiece origin, GamePiece destination, Player player) {
-        final Bounds initialBounds = origin.localToScene(origin.getBoundsInLocal());
-        final double initialX = initialBounds.getCenterX();
-        final double initialY = initialBounds.getCenterY();
-
-        final Bounds finalBounds = destination.localToScene(destination.getBoundsInLocal());
-        final double finalY = finalBounds.getCenterY();
-
-        final Circle circle = new Circle();
-        circle.setFill(origin.getFill());
-        circle.setRadius(origin.getRadius());
-        circle.setCenterX(initialX);
-        root.getChildren().add(circle);
-
-        final DoubleProperty yPos = circle.centerYProperty();
-
-        final List<KeyFrame> keyFrames = new LinkedList<>();
-        final double displacement = finalY - initialY;
-        final double initialFallTime = (displacement - circle.getRadius()) / 2;
-        double time = 0;
-        double deltaTime;
-        double bounceHeight = displacement;
-
-        // Change the check case of the for loop to change the number of bounces.
-        for (int i = 0; i < 2; i++) {
-            // Change constant to adjust speed.
-            deltaTime = ((i + 1) * bounceHeight / displacement) * initialFallTime;
-
-            keyFrames.add(new KeyFrame(
-                    millis(time),
-                    new KeyValue(yPos, finalY - bounceHeight, Interpolator.EASE_OUT)));
-            time += deltaTime;
-            keyFrames.add(new KeyFrame(
-                    millis(time),
-                    new KeyValue(yPos, finalY, Interpolator.EASE_IN)));
-            time += deltaTime;
-
-            // Change constant to change the hight of each bounce.
-            bounceHeight = displacement / (i + 8);
+    private void requestEngineMove() {
+        final Player player = game.getCurrentPlayer();
+        if (!player.isComputer()) {
+            startPondering();
+            return;
         }
+        if (searching || game.isGameOver() || game.isPaused())
+            return;
 
-        final Timeline timeline = new Timeline();
-        timeline.getKeyFrames().addAll(keyFrames);
-        timeline.setOnFinished(event -> {
-            destination.setFill(player.getColor());
-            root.getChildren().remove(circle);
+        final Engine engine = player.getEngine();
+        final Board position = game.getBoard().copy();
+        final long thinkTime = getComputerThinkTime();
+        final CompletableFuture<SearchResult> ponderResult = ponderer == null
+                ? CompletableFuture.completedFuture(null)
+                : ponderer.stop(position);
+        // Stops from here on, such as when the game is left, cut the search
+        // short even if it hasn't started yet.
+        final long stopCount = engine.getStopCount();
+        final int id = ++searchId;
+        searching = true;
+
+        final Task<SearchResult> search = new Task<>() {
+            @Override
+            protected SearchResult call() {
+                // Pondering runs on this executor too, so it's over by now.
+                final SearchResult pondered = ponderResult.join();
+                // If the computer guessed this move while pondering, the time
+                // it already spent on this position counts towards its think
+                // time.
+                final long remainingTime = pondered == null
+                        ? thinkTime
+                        : thinkTime - pondered.elapsedNanos() / 1_000_000;
+                if (remainingTime <= 0 && position.canPlay(pondered.bestColumn()))
+                    return pondered;
+                return engine.search(position, SearchLimits.time(Math.max(remainingTime, 1)), stopCount);
+            }
+        };
+        search.setOnSucceeded(event -> {
+            if (id != searchId)
+                return;
+            searching = false;
+
+            // The search is started again once the game is resumed.
+            if (game.isPaused())
+                return;
+
+            final int column = search.getValue().bestColumn();
+            if (column != -1) {
+                moveMarkerToIndex(column);
+                dropPiece(column);
+            }
+        });
+        search.setOnFailed(event -> {
+            if (id == searchId)
+                searching = false;
+            System.err.println("ERROR: Engine search failed.");
+            search.getException().printStackTrace();
         });
-        timeline.play();
+
+        engineExecutor.execute(search);
+    }
+
+    private void startPondering() {
+        if (ponderer == null)
+            return;
+        if (game.isGameOver() || game.isPaused()) {
+            ponderer.cancel();
+            hint.setVisible(false);
+        } else {
+            ponderer.start(game.getBoard());
+        }
+    }
+
+    private void showProgress(SearchProgress progress) {
+        final Player player = game.getPlayer(progress.sideToMove());
+        final StringBuilder line = new StringBuilder();
+        for (int column : progress.line())
+            line.append(' ').append(column + 1);
+
+        analysisLabel.setText("Depth " + progress.depth()
+                + " | " + player.getName() + " " + formatScore(progress.score())
+                + " | " + formatCount(progress.nodesPerSecond()) + " nodes/s"
+                + " |" + line);
+
+        // Only hint at moves for a person whose turn it is.
+        if (player.isComputer() || !player.equals(game.getCurrentPlayer())
+                || game.isPaused() || game.isGameOver() || progress.bestColumn() == -1)
+            return;
+        hintColumn = progress.bestColumn();
+        hint.setLayoutX(getColumnCenter(hintColumn));
+        hint.setFill(player.getColor());
+        hint.setVisible(true);
+    }
+
+    private static String formatScore(int score) {
+        if (!AlphaBetaEngine.isMateScore(score))
+            return (score > 0 ? "+" : "") + score;
+
+        // Win scores count down by one for every ply until the winning move.
+        final int moves = (AlphaBetaEngine.WIN_SCORE - Math.abs(score)) / 2 + 1;
+        return (score > 0 ? "wins" : "loses") + " in " + moves;
+    }
+
+    private static String formatCount(long count) {
+        if (count >= 1_000_000)
+            return String.format("%.1fM", count / 1_000_000.0);
+        if (count >= 1_000)
+            return String.format("%.1fk", count / 1_000.0);
+        return Long.toString(count);
+    }
+
+    private void cancelEngineSearch() {
+        searchId++;
+        searching = false;
+        if (ponderer != null)
+            ponderer.cancel();
+
+        // Only this game's engine: another game may have started since.
+        if (opponentEngine != null)
+            opponentEngine.stop();
+    }
+
+    private static Engine createEngine() {
+        final int threads = App.getSettings().getEngineThreads();
+        final Engine engine;
+        if (App.getSettings().getEngineType() == Settings.EngineType.MONTE_CARLO)
+            engine = new MctsEngine(threads, MctsEngine.DEFAULT_NODE_CAPACITY);
+        else if (threads > 1)
+            engine = new ParallelSearch(getTranspositionTable(), threads);
+        else
+            engine = new AlphaBetaEngine(getTranspositionTable());
+
+        final OpeningBook book = App.getSettings().isOpeningBookEnabled() ? getOpeningBook() : null;
+        return book == null ? engine : new BookEngine(book, engine);
+    }
+
+    /**
+     * @return The book for the current board setup or {@code null} if there
+     *         isn't one.
+     */
+    private static OpeningBook getOpeningBook() {
+        final Settings settings = App.getSettings();
+        final Path path = Path.of("books", OpeningBook.fileName(settings.getColumnCount(),
+                settings.getRowCount(), settings.getWinRequirement(), settings.isBoardWrappingEnabled()));
+        if (openingBook != null && path.equals(openingBookPath))
+            return openingBook;
+        if (!Files.isReadable(path))
+            return null;
+
+        try {
+            openingBook = OpeningBook.open(path);
+            openingBookPath = path;
+        } catch (IOException e) {
+            System.err.println("WARNING: Opening book failed to load.");
+            e.printStackTrace();
+            return null;
+        }
+        return openingBook;
+    }
+
+    private static TranspositionTable getTranspositionTable() {
+        final long size = App.getSettings().getTranspositionTableSize();
+        if (transpositionTable == null || transpositionTable.getSizeInBytes() != Long.highestOneBit(size) << 20) {
+            transpositionTable = new TranspositionTable(size);
+        } else {
+            transpositionTable.clear();
+        }
+        return transpositionTable;
+    }
+
+    private long getComputerThinkTime() {
+        long thinkTime = App.getSettings().getComputerThinkTime();
+        // Leave some time for the move to be made before the timer runs out.
+        if (App.getSettings().isTimerEnabled() && game.getTimer() != null)
+            thinkTime = Math.min(thinkTime, game.getTimer().getRemainingTime() - 250);
+        return Math.max(thinkTime, 1);
+    }
+
+    private void playDroppingAnimation(GamePiece origin, int column, int row, Player player) {
+        final Bounds initialBounds = root.sceneToLocal(origin.localToScene(origin.getBoundsInLocal()));
+        final Point2D destination = root.sceneToLocal(
+                gameBoard.localToScene(boardRenderer.getCellCenter(column, row)));
+
+        dropAnimator.drop(origin.getFill(), origin.getRadius(),
+                initialBounds.getCenterX(), initialBounds.getCenterY(), destination.getY(),
+                () -> boardRenderer.setFill(column, row, player.getColor()));
     }
 
     private void swapTurns() {
         game.swapTurns();
+        updateTurn();
+        requestEngineMove();
+    }
+
+    private void updateTurn() {
         marker.setOwner(game.getCurrentPlayer());
+        hint.setVisible(false);
 
         updateCurrentTurnLabel();
         if (App.getSettings().isTimerEnabled() && !game.isPaused() && !game.isGameOver())
@@ -394,13 +622,14 @@ public class GameController implements Controller {
         if (App.getSettings().isTimerAutoDrop()) {
             int column = game.getSelectedColumn();
             if (game.findNextFreeRow(column) == -1) {
-                final List<Integer> freeColumns = game.findFreeColumns();
-                column = freeColumns.get((int) (Math.random() * freeColumns.size()));
-                marker.layoutXProperty().bind(markerBindings[column]);
+                column = game.findRandomFreeColumn();
+                marker.setLayoutX(getColumnCenter(column));
             }
 
-            placePiece(column);
+            cancelEngineSearch();
+            dropPiece(column);
         } else {
+            cancelEngineSearch();
             swapTurns();
         }
     }
@@ -420,32 +649,67 @@ public class GameController implements Controller {
         currentTurn.setText(name + pluralPostfix + " turn");
     }
 
-    // Update gameBoard size because the GridPane doesn't resize automatically
-    // when circles are added.
-    private void handleWindowSizeChanged(Dimension2D containerDimensions) {
-        if (containerDimensions == null)
+    /**
+     * Sizes the board to fit its container and places everything on it and
+     * above it. Runs after every layout pass, but only does anything if the
+     * space for the board changed.
+     */
+    private void layoutBoard() {
+        if (!layoutPending)
             return;
-        final double size = Math.min(
-                containerDimensions.getWidth() / game.getColumnCount(),
-                containerDimensions.getHeight() / game.getRowCount());
-        gameBoard.setMaxSize(size * game.getColumnCount(), size * game.getRowCount());
+        layoutPending = false;
+
+        final Region gameBoardContainer = (Region) gameBoard.getParent();
+        cellSize = Math.min(
+                gameBoardContainer.getWidth() / game.getColumnCount(),
+                gameBoardContainer.getHeight() / game.getRowCount());
+        final double width = cellSize * game.getColumnCount();
+        gameBoard.setMaxSize(width, cellSize * game.getRowCount());
+        markerContainer.setMaxWidth(width);
+        // Centre both now instead of on the next pulse.
+        gameBoardContainer.layout();
+        markerContainer.getParent().layout();
+
+        boardRenderer.layout(cellSize);
+
+        final double radius = BoardRenderer.pieceRadius(cellSize);
+        final double markerY = markerContainer.getHeight() / 2;
+        marker.setRadius(radius);
+        marker.setLayoutX(getColumnCenter(game.getSelectedColumn()));
+        marker.setLayoutY(markerY);
+        hint.setRadius(radius);
+        hint.setLayoutX(getColumnCenter(hintColumn));
+        hint.setLayoutY(markerY);
+    }
+
+    private void updateHistorySlider() {
+        updatingHistorySlider = true;
+        historySlider.setMax(game.getMoveCount());
+        historySlider.setValue(game.getHistoryPointer() + 1);
+        updatingHistorySlider = false;
     }
 
     @FXML
     private void handleBackButton() {
+        dropAnimator.finishAll();
         game.moveHistoryPointerBack();
+        updateHistorySlider();
     }
 
     @FXML
     private void handleForwardButton() {
+        dropAnimator.finishAll();
         game.moveHistoryPointerForward();
+        updateHistorySlider();
+        requestEngineMove();
     }
 
     @FXML
     private void handleCurrentMoveButton() {
-        while (!game.historyPointerIsAtLatestMove()) {
-            game.moveHistoryPointerForward();
-        }
+        dropAnimator.finishAll();
+        game.seek(game.getMoveCount());
+        updateHistorySlider();
+        requestEngineMove();
     }
 
     @FXML
@@ -457,7 +721,10 @@ public class GameController implements Controller {
         final ConfirmController controller = (ConfirmController) loadedData.b();
 
         controller.setText("Are you sure you want to leave the game?");
-        controller.setOnOk(() -> SceneManager.switchScenes("Start", millis(400)));
+        controller.setOnOk(() -> {
+            cancelEngineSearch();
+            SceneManager.switchScenes("Start", millis(400));
+        });
         controller.setOnCancel(() -> setDisable(false));
 
         SceneManager.addScene(root);
@@ -472,7 +739,10 @@ public class GameController implements Controller {
         final ConfirmController controller = (ConfirmController) loadedData.b();
 
         controller.setText("Are you sure you want to reset the game?");
-        controller.setOnOk(() -> SceneManager.switchScenes("Game", millis(400)));
+        controller.setOnOk(() -> {
+            cancelEngineSearch();
+            SceneManager.switchScenes("Game", millis(400));
+        });
         controller.setOnCancel(() -> setDisable(false));
 
         SceneManager.addScene(root);
@@ -480,7 +750,10 @@ public class GameController implements Controller {
 
     @Override
     public void setDisable(boolean disabled) {
-        if (!disabled && !game.isGameOver()) {
+        // A game looked at from an earlier move stays paused, as playing
+        // from there would throw away the moves after it.
+        final boolean resume = !disabled && !game.isGameOver() && game.historyPointerIsAtLatestMove();
+        if (resume) {
             game.setPaused(false);
             if (App.getSettings().isTimerEnabled() && game.getTimer() != null)
                 game.getTimer().resume();
@@ -488,9 +761,14 @@ public class GameController implements Controller {
             game.setPaused(true);
             if (App.getSettings().isTimerEnabled() && game.getTimer() != null)
                 game.getTimer().stop();
+            if (ponderer != null)
+                ponderer.cancel();
         }
 
         root.setDisable(disabled);
         root.setOpacity(disabled ? App.DISABLED_OPACITY : 1);
+
+        if (resume)
+            requestEngineMove();
     }
 }
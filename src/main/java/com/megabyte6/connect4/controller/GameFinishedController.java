@@ -19,8 +19,12 @@ public class GameFinishedController implements Controller {
     @FXML
     private Label label;
 
-    @FXML
-    private void initialize() {
+    @Override
+    public void reset() {
+        runOnClose = () -> {
+        };
+        setDisable(false);
+
         if (App.getWinner().equals(Player.NONE.get())) {
             label.setText("It's a tie!");
         } else {
@@ -8,6 +8,7 @@ import javafx.fxml.FXML;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.ColorPicker;
 import javafx.scene.control.Spinner;
 import javafx.scene.control.SpinnerValueFactory;
@@ -53,6 +54,13 @@ public class SettingsController implements Controller {
     @FXML
     private ColorPicker obstacleColor;
 
+    @FXML
+    private CheckBox computerOpponentEnabled;
+    @FXML
+    private Spinner<Integer> computerThinkTime;
+    @FXML
+    private ChoiceBox<Settings.EngineType> engineType;
+
     @FXML
     private void initialize() {
         columnCount.getStyleClass().add(Spinner.STYLE_CLASS_SPLIT_ARROWS_HORIZONTAL);
@@ -70,7 +78,8 @@ public class SettingsController implements Controller {
         numOfObstacles.getStyleClass().add(Spinner.STYLE_CLASS_SPLIT_ARROWS_HORIZONTAL);
         numOfObstacles.editorProperty().get().setAlignment(Pos.CENTER);
 
-        reloadSettings();
+        computerThinkTime.getStyleClass().add(Spinner.STYLE_CLASS_SPLIT_ARROWS_HORIZONTAL);
+        computerThinkTime.editorProperty().get().setAlignment(Pos.CENTER);
 
         // Listeners.
         columnCount.setOnMouseReleased(event -> {
@@ -103,6 +112,13 @@ public class SettingsController implements Controller {
         });
         numOfObstacles.setOnMouseReleased(event -> updateAppSettings());
         obstacleColor.setOnAction(event -> updateAppSettings());
+        computerOpponentEnabled.setOnAction(event -> {
+            updateAppSettings();
+            computerThinkTime.setDisable(!computerOpponentEnabled.isSelected());
+            engineType.setDisable(!computerOpponentEnabled.isSelected());
+        });
+        computerThinkTime.setOnMouseReleased(event -> updateAppSettings());
+        engineType.setOnAction(event -> updateAppSettings());
     }
 
     private void updateMaxWinningLength() {
@@ -152,6 +168,9 @@ public class SettingsController implements Controller {
         settings.setObstaclesEnabled(obstaclesEnabled.isSelected());
         settings.setNumOfObstacles(numOfObstacles.getValue());
         settings.setObstacleColor(obstacleColor.getValue());
+        settings.setComputerOpponentEnabled(computerOpponentEnabled.isSelected());
+        settings.setComputerThinkTimeInSeconds(computerThinkTime.getValue());
+        settings.setEngineType(engineType.getValue());
     }
 
     private void reloadSettings() {
@@ -201,6 +220,18 @@ public class SettingsController implements Controller {
 
         obstacleColor.setValue(App.getSettings().getObstacleColor());
         obstacleColor.setDisable(!obstaclesEnabled.isSelected());
+
+        computerOpponentEnabled.setSelected(App.getSettings().isComputerOpponentEnabled());
+
+        computerThinkTime.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(
+                1,
+                Integer.MAX_VALUE,
+                App.getSettings().getComputerThinkTimeInSeconds()));
+        computerThinkTime.setDisable(!computerOpponentEnabled.isSelected());
+
+        engineType.getItems().setAll(Settings.EngineType.values());
+        engineType.setValue(App.getSettings().getEngineType());
+        engineType.setDisable(!computerOpponentEnabled.isSelected());
     }
 
     private void resetAllSettings() {
@@ -208,6 +239,15 @@ public class SettingsController implements Controller {
         reloadSettings();
     }
 
+    @Override
+    public void reset() {
+        runAfter = () -> {
+        };
+        setDisable(false);
+        // The settings may have changed since this was last shown.
+        reloadSettings();
+    }
+
     public void setOnClosed(Runnable run) {
         runAfter = run;
     }
@@ -26,7 +26,11 @@ public class StartController implements Controller {
                     handleSettingsButton();
             }
         });
+    }
 
+    @Override
+    public void reset() {
+        setDisable(false);
         root.requestFocus();
     }
 
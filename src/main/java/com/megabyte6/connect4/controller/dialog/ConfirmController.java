@@ -15,9 +15,13 @@ public class ConfirmController implements Controller {
     private Runnable onCancel = () -> {
     };
 
-    @FXML
-    private void initialize() {
+    @Override
+    public void reset() {
         textLabel.setText("The developer forgot to set this text :)");
+        onOk = () -> {
+        };
+        onCancel = () -> {
+        };
     }
 
     public void setOnOk(Runnable run) {
@@ -34,6 +34,18 @@ public class TextPromptController implements Controller {
             SceneManager.removeTopScene();
             onOk.accept(textField.getText());
         });
+    }
+
+    @Override
+    public void reset() {
+        onOk = (text) -> {
+        };
+        onCancel = () -> {
+        };
+        selectText = false;
+        promptLabel.setText("");
+        textField.clear();
+        setDisable(false);
 
         textField.requestFocus();
     }
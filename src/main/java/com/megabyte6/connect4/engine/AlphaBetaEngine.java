@@ -0,0 +1,301 @@
+package com.megabyte6.connect4.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Negamax search with alpha-beta pruning and iterative deepening. Moves are
+ * tried centre first, with the best move of the previous iteration moved to
+ * the front at the root.
+ * <p>
+ * Leaves are scored by an {@link Evaluator}, which is kept up to date as
+ * moves are made and taken back rather than rescanning the board.
+ * <p>
+ * If a {@link TranspositionTable} is given, results are shared through it
+ * and its best moves are tried first.
+ */
+public class AlphaBetaEngine implements Engine {
+
+    public static final int WIN_SCORE = 1_000_000;
+
+    // How often (in nodes) the time limit is looked at.
+    private static final int CHECK_INTERVAL = 1024;
+
+    private final AtomicLong stopCount = new AtomicLong();
+    // Set when the running search should return, whether it was stopped or
+    // ran out of nodes or time.
+    private volatile boolean stopped = false;
+    private volatile Consumer<SearchProgress> progressListener;
+
+    private final TranspositionTable table;
+    // Helper threads in a parallel search start at different depths so they
+    // don't all walk the same tree in lockstep.
+    private final int firstDepth;
+
+    private Board board;
+    private WinDetector winDetector;
+    private int[] moveOrder;
+    private Evaluator evaluator;
+    // Best line found below each ply: pv[ply][0] to pv[ply][pvLengths[ply]].
+    private int[][] pv = new int[1][1];
+    private int[] pvLengths = new int[2];
+
+    private long nodes;
+    private long nodeLimit;
+    private long searchStopCount;
+    private long deadline;
+    private int rootBestColumn;
+
+    public AlphaBetaEngine() {
+        this(null);
+    }
+
+    public AlphaBetaEngine(TranspositionTable table) {
+        this(table, 1);
+    }
+
+    AlphaBetaEngine(TranspositionTable table, int firstDepth) {
+        this.table = table;
+        this.firstDepth = firstDepth;
+    }
+
+    @Override
+    public SearchResult search(Board position, SearchLimits limits, long stopCount) {
+        final long startTime = System.nanoTime();
+        searchStopCount = stopCount;
+        stopped = this.stopCount.get() != stopCount;
+
+        board = position.copy();
+        winDetector = new WinDetector(board);
+        moveOrder = centreFirstOrder(board.getColumnCount());
+        evaluator = new Evaluator(board);
+
+        nodes = 0;
+        nodeLimit = limits.maxNodes() == 0 ? Long.MAX_VALUE : limits.maxNodes();
+        deadline = limits.maxTimeMillis() == 0
+                ? Long.MAX_VALUE
+                : startTime + limits.maxTimeMillis() * 1_000_000L;
+
+        final int emptyCells = board.getEmptyCellCount();
+        final int maxDepth = limits.maxDepth() == 0
+                ? emptyCells
+                : Math.min(limits.maxDepth(), emptyCells);
+
+        int bestColumn = firstPlayableColumn();
+        int bestScore = 0;
+        int completedDepth = 0;
+
+        for (int depth = Math.min(firstDepth, maxDepth); depth <= maxDepth && bestColumn != -1; depth++) {
+            rootBestColumn = bestColumn;
+            if (pv.length <= depth) {
+                pv = new int[depth + 1][depth + 1];
+                pvLengths = new int[depth + 2];
+            }
+            final int score = negamax(depth, -WIN_SCORE - 1, WIN_SCORE + 1, 0);
+            if (stopped)
+                break;
+
+            bestColumn = rootBestColumn;
+            bestScore = score;
+            completedDepth = depth;
+
+            final Consumer<SearchProgress> listener = progressListener;
+            if (listener != null)
+                listener.accept(new SearchProgress(board.getSideToMove(), depth, score, nodes,
+                        System.nanoTime() - startTime, Arrays.copyOf(pv[0], pvLengths[0])));
+
+            // A forced win or loss has been found so searching deeper won't
+            // change the move.
+            if (isMateScore(score))
+                break;
+        }
+
+        return new SearchResult(bestColumn, bestScore, completedDepth, nodes, System.nanoTime() - startTime);
+    }
+
+    @Override
+    public void stop() {
+        stopCount.incrementAndGet();
+        stopped = true;
+    }
+
+    @Override
+    public long getStopCount() {
+        return stopCount.get();
+    }
+
+    @Override
+    public void setProgressListener(Consumer<SearchProgress> listener) {
+        progressListener = listener;
+    }
+
+    /**
+     * @return Positions visited by the running or last search. Only a rough
+     *         figure when read from another thread.
+     */
+    long getNodeCount() {
+        return nodes;
+    }
+
+    public static boolean isMateScore(int score) {
+        return Math.abs(score) > WIN_SCORE / 2;
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply) {
+        nodes++;
+        if (nodes % CHECK_INTERVAL == 0)
+            checkLimits();
+        if (stopped)
+            return 0;
+
+        pvLengths[ply] = 0;
+        if (depth == 0)
+            return evaluate();
+
+        final boolean root = ply == 0;
+        final int originalAlpha = alpha;
+        final long key = table == null ? 0 : board.key();
+        int firstMove = root ? rootBestColumn : -1;
+
+        if (table != null) {
+            final long entry = table.probe(key);
+            if (entry != 0) {
+                if (!root)
+                    firstMove = TranspositionTable.move(entry);
+
+                // The root always searches so that it has a move to return.
+                if (!root && TranspositionTable.depth(entry) >= depth) {
+                    final int score = fromTableScore(TranspositionTable.score(entry), ply);
+                    switch (TranspositionTable.bound(entry)) {
+                        case TranspositionTable.BOUND_EXACT -> {
+                            return score;
+                        }
+                        case TranspositionTable.BOUND_LOWER -> alpha = Math.max(alpha, score);
+                        case TranspositionTable.BOUND_UPPER -> beta = Math.min(beta, score);
+                        default -> {
+                        }
+                    }
+                    if (alpha >= beta)
+                        return score;
+                }
+            }
+        }
+
+        int bestScore = -WIN_SCORE - 1;
+        int bestColumn = -1;
+
+        for (int i = -1; i < moveOrder.length; i++) {
+            // The best move from the last iteration or the table goes first.
+            final int column = i == -1 ? firstMove : moveOrder[i];
+            if (i >= 0 && column == firstMove)
+                continue;
+            if (!board.canPlay(column))
+                continue;
+
+            final int player = board.getSideToMove();
+            final int row = board.play(column);
+            pvLengths[ply + 1] = 0;
+
+            // Wins and draws are scored without the evaluator, so it's only
+            // updated when searching deeper.
+            final int score;
+            if (winDetector.isWinningMove(column, row)) {
+                score = WIN_SCORE - ply;
+            } else if (board.isFull()) {
+                score = 0;
+            } else {
+                evaluator.add(player, column, row);
+                score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+                evaluator.remove(player, column, row);
+            }
+
+            board.undo();
+
+            if (stopped)
+                return 0;
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestColumn = column;
+                if (root)
+                    rootBestColumn = column;
+            }
+            if (score > alpha) {
+                alpha = score;
+                pv[ply][0] = column;
+                System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLengths[ply + 1]);
+                pvLengths[ply] = pvLengths[ply + 1] + 1;
+            }
+            if (alpha >= beta)
+                break;
+        }
+
+        if (bestColumn == -1)
+            return 0;
+
+        if (table != null) {
+            final int bound = bestScore <= originalAlpha
+                    ? TranspositionTable.BOUND_UPPER
+                    : bestScore >= beta
+                            ? TranspositionTable.BOUND_LOWER
+                            : TranspositionTable.BOUND_EXACT;
+            table.store(key, toTableScore(bestScore, ply), depth, bound, bestColumn);
+        }
+
+        return bestScore;
+    }
+
+    // Win scores count plies from the root. The table stores them counted
+    // from the position itself so they can be reused at any ply.
+    private static int toTableScore(int score, int ply) {
+        if (score > WIN_SCORE / 2)
+            return score + ply;
+        if (score < -WIN_SCORE / 2)
+            return score - ply;
+        return score;
+    }
+
+    private static int fromTableScore(int score, int ply) {
+        if (score > WIN_SCORE / 2)
+            return score - ply;
+        if (score < -WIN_SCORE / 2)
+            return score + ply;
+        return score;
+    }
+
+    private int evaluate() {
+        return evaluator.evaluate(board.getSideToMove());
+    }
+
+    private void checkLimits() {
+        // A stop can race with the start of the search and be overwritten,
+        // so the count is looked at too.
+        if (nodes >= nodeLimit || System.nanoTime() >= deadline || stopCount.get() != searchStopCount)
+            stopped = true;
+    }
+
+    private int firstPlayableColumn() {
+        for (int column : moveOrder) {
+            if (board.canPlay(column))
+                return column;
+        }
+        return -1;
+    }
+
+    /**
+     * @return Every column ordered by distance from the centre, nearest
+     *         first.
+     */
+    static int[] centreFirstOrder(int columns) {
+        final int[] order = new int[columns];
+        final int centre = (columns - 1) / 2;
+        for (int i = 0; i < columns; i++) {
+            // centre, centre + 1, centre - 1, centre + 2, ...
+            final int offset = (i + 1) / 2;
+            order[i] = i % 2 == 1 ? centre + offset : centre - offset;
+        }
+        return order;
+    }
+
+}
@@ -0,0 +1,490 @@
+package com.megabyte6.connect4.engine;
+
+import java.util.Arrays;
+
+/**
+ * A headless connect 4 position. The board is stored as one occupancy
+ * bitboard per owner (player 1, player 2 and obstacles) plus a table of
+ * column heights, so making and undoing a move is O(1) and none of the rule
+ * queries touch the scene graph.
+ * <p>
+ * Public methods use the same coordinates as the rest of the app: columns
+ * run left to right and row 0 is the top of the board. Internally each
+ * column is {@code rows + 1} bits tall (the extra bit is always empty) and
+ * the bits are counted from the bottom of the column, which is the layout
+ * the shift based win checks expect.
+ * <p>
+ * A Zobrist key of the position, and of its mirror image, is kept up to
+ * date on every move, undo and obstacle.
+ */
+public class Board {
+
+    public static final int EMPTY = -1;
+    public static final int PLAYER_1 = 0;
+    public static final int PLAYER_2 = 1;
+    public static final int OBSTACLE = 2;
+
+    private final int columns;
+    private final int rows;
+    private final int winRequirement;
+    private final boolean boardWrapping;
+
+    // Bits per column, including the empty sentinel bit on top.
+    private final int stride;
+
+    // [owner][word]
+    private final long[][] occupancy;
+    // Number of filled cells in each column, counted from the bottom.
+    private final int[] heights;
+    private int filledCells = 0;
+    // One bit per column, set while the column still has room.
+    private final long[] playableColumns;
+    private int playableColumnCount;
+
+    // Column << 1 | player for every move played since the start.
+    private final int[] moves;
+    private int moveCount = 0;
+
+    private int sideToMove = PLAYER_1;
+
+    private final Zobrist zobrist;
+    private long key = 0;
+    private long mirroredKey = 0;
+
+    public Board(int columns, int rows, int winRequirement, boolean boardWrapping) {
+        if (columns < 1 || rows < 1)
+            throw new IllegalArgumentException("Board must have at least one column and one row.");
+        if (winRequirement < 1)
+            throw new IllegalArgumentException("Win requirement must be positive.");
+
+        this.columns = columns;
+        this.rows = rows;
+        this.winRequirement = winRequirement;
+        this.boardWrapping = boardWrapping;
+
+        stride = rows + 1;
+        final int words = (int) ((((long) columns * stride) + 63) >>> 6);
+        occupancy = new long[3][words];
+        heights = new int[columns];
+        moves = new int[columns * rows];
+
+        playableColumns = new long[(columns + 63) >>> 6];
+        for (int column = 0; column < columns; column++)
+            playableColumns[column >>> 6] |= 1L << column;
+        playableColumnCount = columns;
+        zobrist = Zobrist.of(columns, rows);
+    }
+
+    private Board(Board other) {
+        columns = other.columns;
+        rows = other.rows;
+        winRequirement = other.winRequirement;
+        boardWrapping = other.boardWrapping;
+        stride = other.stride;
+
+        occupancy = new long[3][];
+        for (int owner = 0; owner < occupancy.length; owner++)
+            occupancy[owner] = other.occupancy[owner].clone();
+        heights = other.heights.clone();
+        filledCells = other.filledCells;
+        playableColumns = other.playableColumns.clone();
+        playableColumnCount = other.playableColumnCount;
+        moves = other.moves.clone();
+        moveCount = other.moveCount;
+        sideToMove = other.sideToMove;
+        zobrist = other.zobrist;
+        key = other.key;
+        mirroredKey = other.mirroredKey;
+    }
+
+    public Board copy() {
+        return new Board(this);
+    }
+
+    /**
+     * Overwrites this position with {@code snapshot} without allocating.
+     * Both boards must have the same size.
+     */
+    public void restore(Board snapshot) {
+        if (snapshot.columns != columns || snapshot.rows != rows)
+            throw new IllegalArgumentException("Cannot restore a board of a different size.");
+
+        for (int owner = 0; owner < occupancy.length; owner++)
+            System.arraycopy(snapshot.occupancy[owner], 0, occupancy[owner], 0, occupancy[owner].length);
+        System.arraycopy(snapshot.heights, 0, heights, 0, columns);
+        filledCells = snapshot.filledCells;
+        System.arraycopy(snapshot.playableColumns, 0, playableColumns, 0, playableColumns.length);
+        playableColumnCount = snapshot.playableColumnCount;
+        System.arraycopy(snapshot.moves, 0, moves, 0, snapshot.moveCount);
+        moveCount = snapshot.moveCount;
+        sideToMove = snapshot.sideToMove;
+        key = snapshot.key;
+        mirroredKey = snapshot.mirroredKey;
+    }
+
+    /**
+     * Drops a piece for the side to move and hands the turn to the other
+     * player.
+     *
+     * @return The row the piece landed in or {@code -1} if the column is
+     *         full.
+     */
+    public int play(int column) {
+        return play(column, sideToMove);
+    }
+
+    /**
+     * Drops a piece for {@code player} and hands the turn to the other
+     * player.
+     *
+     * @return The row the piece landed in or {@code -1} if the column is
+     *         full.
+     */
+    public int play(int column, int player) {
+        if (player != PLAYER_1 && player != PLAYER_2)
+            throw new IllegalArgumentException("Only players can make moves.");
+        if (!canPlay(column))
+            return -1;
+
+        final int height = heights[column];
+        set(player, column, height);
+
+        moves[moveCount++] = column << 1 | player;
+        setSide(player ^ 1);
+
+        return toRow(height);
+    }
+
+    /**
+     * Takes back the last move and gives the turn back to the player who
+     * made it. Obstacles are not moves and are never taken back.
+     *
+     * @return The column of the move that was taken back or {@code -1} if
+     *         there are no moves to take back.
+     */
+    public int undo() {
+        if (moveCount == 0)
+            return -1;
+
+        final int move = moves[--moveCount];
+        final int column = move >>> 1;
+        final int player = move & 1;
+
+        clear(player, column, heights[column] - 1);
+        setSide(player);
+
+        return column;
+    }
+
+    /**
+     * Drops an obstacle into {@code column}. Obstacles don't change whose
+     * turn it is and aren't recorded as moves.
+     *
+     * @return The row the obstacle landed in or {@code -1} if the column is
+     *         full.
+     */
+    public int placeObstacle(int column) {
+        if (!canPlay(column))
+            return -1;
+
+        final int height = heights[column];
+        set(OBSTACLE, column, height);
+
+        return toRow(height);
+    }
+
+    private void set(int owner, int column, int height) {
+        final int bit = bitIndex(column, height);
+        occupancy[owner][bit >>> 6] |= 1L << bit;
+        if (++heights[column] == rows) {
+            playableColumns[column >>> 6] &= ~(1L << column);
+            playableColumnCount--;
+        }
+        filledCells++;
+        toggleKeys(owner, column, height);
+    }
+
+    private void clear(int owner, int column, int height) {
+        final int bit = bitIndex(column, height);
+        occupancy[owner][bit >>> 6] &= ~(1L << bit);
+        if (heights[column]-- == rows) {
+            playableColumns[column >>> 6] |= 1L << column;
+            playableColumnCount++;
+        }
+        filledCells--;
+        toggleKeys(owner, column, height);
+    }
+
+    private void toggleKeys(int owner, int column, int height) {
+        key ^= zobrist.cellKey(owner, column, height);
+        mirroredKey ^= zobrist.mirroredCellKey(owner, column, height);
+    }
+
+    private void setSide(int player) {
+        if (player != sideToMove) {
+            key ^= zobrist.sideKey();
+            mirroredKey ^= zobrist.sideKey();
+        }
+        sideToMove = player;
+    }
+
+    public void swapSides() {
+        setSide(sideToMove ^ 1);
+    }
+
+    public int getSideToMove() {
+        return sideToMove;
+    }
+
+    public void setSideToMove(int player) {
+        if (player != PLAYER_1 && player != PLAYER_2)
+            throw new IllegalArgumentException("Only players can be given the turn.");
+        setSide(player);
+    }
+
+    public boolean canPlay(int column) {
+        return column >= 0 && column < columns && heights[column] < rows;
+    }
+
+    /**
+     * @return The row the next piece dropped into {@code column} would land
+     *         in or {@code -1} if the column is full.
+     */
+    public int findNextFreeRow(int column) {
+        return canPlay(column) ? toRow(heights[column]) : -1;
+    }
+
+    public boolean isFull() {
+        return playableColumnCount == 0;
+    }
+
+    public int getEmptyCellCount() {
+        return columns * rows - filledCells;
+    }
+
+    public int getPlayableColumnCount() {
+        return playableColumnCount;
+    }
+
+    /**
+     * @return The first column from {@code from} onwards that isn't full or
+     *         {@code -1} if there isn't one.
+     */
+    public int nextPlayableColumn(int from) {
+        if (from < 0)
+            from = 0;
+        if (from >= columns)
+            return -1;
+
+        int word = from >>> 6;
+        long bits = playableColumns[word] & (-1L << from);
+        while (bits == 0) {
+            if (++word == playableColumns.length)
+                return -1;
+            bits = playableColumns[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * @param index Index among the columns that aren't full, from the left.
+     * @return The column or {@code -1} if there aren't that many.
+     */
+    public int getPlayableColumn(int index) {
+        if (index < 0 || index >= playableColumnCount)
+            return -1;
+
+        for (int word = 0; word < playableColumns.length; word++) {
+            long bits = playableColumns[word];
+            final int count = Long.bitCount(bits);
+            if (index >= count) {
+                index -= count;
+                continue;
+            }
+            for (int i = 0; i < index; i++)
+                bits &= bits - 1;
+            return (word << 6) + Long.numberOfTrailingZeros(bits);
+        }
+        return -1;
+    }
+
+    /**
+     * @return {@link #PLAYER_1}, {@link #PLAYER_2}, {@link #OBSTACLE} or
+     *         {@link #EMPTY}.
+     */
+    public int getOwner(int column, int row) {
+        final int height = toHeight(row);
+        if (height >= heights[column])
+            return EMPTY;
+
+        final int bit = bitIndex(column, height);
+        for (int owner = 0; owner < occupancy.length; owner++) {
+            if ((occupancy[owner][bit >>> 6] & 1L << bit) != 0)
+                return owner;
+        }
+        return EMPTY;
+    }
+
+    public boolean isOwnedBy(int owner, int column, int row) {
+        final int bit = bitIndex(column, toHeight(row));
+        return (occupancy[owner][bit >>> 6] & 1L << bit) != 0;
+    }
+
+    /**
+     * @return The Zobrist key of the position, including the side to move.
+     *         Equal positions always have equal keys.
+     */
+    public long key() {
+        return key;
+    }
+
+    /**
+     * @return The key the position would have if it was mirrored left to
+     *         right.
+     */
+    public long mirroredKey() {
+        return mirroredKey;
+    }
+
+    /**
+     * @return A key shared by the position and its mirror image.
+     */
+    public long canonicalKey() {
+        return Math.min(key, mirroredKey);
+    }
+
+    /**
+     * @return {@code true} if {@link #canonicalKey()} is the mirrored key,
+     *         meaning columns looked up by it have to be mirrored too.
+     */
+    public boolean isCanonicalKeyMirrored() {
+        return mirroredKey < key;
+    }
+
+    /**
+     * @return The {@link #canonicalKey()} the position would have with the
+     *         players' pieces and turn swapped. It's worked out from the
+     *         whole board rather than kept up to date, so it's much slower.
+     */
+    public long colourSwappedCanonicalKey() {
+        return Math.min(key ^ colourSwapKeys(false), mirroredKey ^ colourSwapKeys(true));
+    }
+
+    /**
+     * Same as {@link #isCanonicalKeyMirrored()} for
+     * {@link #colourSwappedCanonicalKey()}.
+     */
+    public boolean isColourSwappedCanonicalKeyMirrored() {
+        return (mirroredKey ^ colourSwapKeys(true)) < (key ^ colourSwapKeys(false));
+    }
+
+    // The keys that change when the players' pieces and turn are swapped.
+    private long colourSwapKeys(boolean mirrored) {
+        long keys = zobrist.sideKey();
+        for (int column = 0; column < columns; column++) {
+            for (int height = 0; height < heights[column]; height++) {
+                final int bit = bitIndex(column, height);
+                if ((occupancy[OBSTACLE][bit >>> 6] & 1L << bit) != 0)
+                    continue;
+                keys ^= mirrored
+                        ? zobrist.mirroredCellKey(PLAYER_1, column, height)
+                                ^ zobrist.mirroredCellKey(PLAYER_2, column, height)
+                        : zobrist.cellKey(PLAYER_1, column, height) ^ zobrist.cellKey(PLAYER_2, column, height);
+            }
+        }
+        return keys;
+    }
+
+    public int getHeight(int column) {
+        return heights[column];
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    public int getMoveColumn(int index) {
+        return moves[index] >>> 1;
+    }
+
+    public int getMovePlayer(int index) {
+        return moves[index] & 1;
+    }
+
+    public int getColumnCount() {
+        return columns;
+    }
+
+    public int getRowCount() {
+        return rows;
+    }
+
+    public int getWinRequirement() {
+        return winRequirement;
+    }
+
+    public boolean isBoardWrappingEnabled() {
+        return boardWrapping;
+    }
+
+    int getStride() {
+        return stride;
+    }
+
+    int bitIndex(int column, int height) {
+        return column * stride + height;
+    }
+
+    int toHeight(int row) {
+        return rows - 1 - row;
+    }
+
+    int toRow(int height) {
+        return rows - 1 - height;
+    }
+
+    /**
+     * Direct access to an owner's bitboard for the win detector and search
+     * code. Callers must not modify the returned array.
+     */
+    long[] occupancy(int owner) {
+        return occupancy[owner];
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                builder.append(switch (getOwner(column, row)) {
+                    case PLAYER_1 -> 'X';
+                    case PLAYER_2 -> 'O';
+                    case OBSTACLE -> '#';
+                    default -> '.';
+                });
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof Board other))
+            return false;
+        return columns == other.columns
+                && rows == other.rows
+                && winRequirement == other.winRequirement
+                && boardWrapping == other.boardWrapping
+                && sideToMove == other.sideToMove
+                && Arrays.deepEquals(occupancy, other.occupancy);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(key);
+    }
+
+}
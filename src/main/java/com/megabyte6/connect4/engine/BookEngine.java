@@ -0,0 +1,56 @@
+package com.megabyte6.connect4.engine;
+
+import java.util.function.Consumer;
+
+/**
+ * Plays moves from an {@link OpeningBook} while the game is still in the
+ * book and leaves every other position to another engine.
+ */
+public class BookEngine implements Engine {
+
+    private final OpeningBook book;
+    private final Engine fallback;
+
+    public BookEngine(OpeningBook book, Engine fallback) {
+        if (book == null || fallback == null)
+            throw new IllegalArgumentException("A book engine needs a book and an engine to fall back on.");
+
+        this.book = book;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public SearchResult search(Board position, SearchLimits limits, long stopCount) {
+        final long startTime = System.nanoTime();
+        final int entry = book.probe(position);
+        if (entry != OpeningBook.NOT_FOUND && position.canPlay(OpeningBook.column(entry)))
+            return new SearchResult(OpeningBook.column(entry), OpeningBook.score(entry), 0, 0,
+                    System.nanoTime() - startTime);
+
+        return fallback.search(position, limits, stopCount);
+    }
+
+    @Override
+    public void stop() {
+        fallback.stop();
+    }
+
+    @Override
+    public long getStopCount() {
+        return fallback.getStopCount();
+    }
+
+    @Override
+    public void setProgressListener(Consumer<SearchProgress> listener) {
+        fallback.setProgressListener(listener);
+    }
+
+    public OpeningBook getBook() {
+        return book;
+    }
+
+    public Engine getFallback() {
+        return fallback;
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.megabyte6.connect4.engine;
+
+import java.util.function.Consumer;
+
+/**
+ * Something that can pick moves for a computer player. Searches are always
+ * started off the FX thread and may be cut short from any thread with
+ * {@link #stop()}, including before they start.
+ */
+public interface Engine {
+
+    /**
+     * Searches {@code position} for the side to move. The position is not
+     * modified. Stops from before the search starts don't affect it, so a
+     * search that's queued to run later should use
+     * {@link #search(Board, SearchLimits, long)} instead.
+     */
+    default SearchResult search(Board position, SearchLimits limits) {
+        return search(position, limits, getStopCount());
+    }
+
+    /**
+     * Searches like {@link #search(Board, SearchLimits)}, but any
+     * {@link #stop()} since {@link #getStopCount()} returned
+     * {@code stopCount} cuts it short, even one from before it starts.
+     * Take the count when the search is queued.
+     */
+    SearchResult search(Board position, SearchLimits limits, long stopCount);
+
+    /**
+     * Asks a running or queued search to return as soon as possible with
+     * the best move it has found so far.
+     */
+    void stop();
+
+    /**
+     * @return How many times {@link #stop()} has been called.
+     */
+    long getStopCount();
+
+    /**
+     * Reports how searches are going to {@code listener}, from the searching
+     * thread, while they run. Engines that can't report progress ignore it.
+     * Pass {@code null} to stop reporting.
+     */
+    default void setProgressListener(Consumer<SearchProgress> listener) {
+    }
+
+}
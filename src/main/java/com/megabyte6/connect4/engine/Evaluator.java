@@ -0,0 +1,324 @@
+package com.megabyte6.connect4.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Static evaluation that keeps track of every line of
+ * {@code winRequirement} cells on the board as pieces come and go, instead
+ * of rescanning the board at every leaf.
+ * <p>
+ * A line is open for a player while it holds none of the opponent's pieces
+ * and no obstacles. Open lines score more the fuller they are, and an open
+ * line that is one piece short makes its empty cell a threat. Threats are
+ * split by the parity of their height: the first player wants threats on
+ * odd rows (counting the bottom row as 1) and the second player wants them
+ * on even rows, because of how the board fills up at the end of the game.
+ * <p>
+ * Each piece only touches the lines through its cell, so a move costs about
+ * {@code 4 * winRequirement} line updates whatever the board size.
+ * <p>
+ * The evaluator has to be told about every piece with {@link #add} and
+ * {@link #remove}. It doesn't watch the board.
+ */
+public class Evaluator {
+
+    public static final int THREAT_SCORE = 32;
+    // Threats on the wrong parity still restrict the opponent, just less.
+    public static final int WEAK_THREAT_SCORE = 12;
+
+    private static final ConcurrentMap<Geometry, Lines> cache = new ConcurrentHashMap<>();
+
+    private final Lines lines;
+    // [owner][line]
+    private final int[][] counts;
+    // Sum of the cell indices of the filled cells of each line. When only
+    // one cell is empty, it's the line's cell sum minus this.
+    private final int[] filledSums;
+    // [player][cell]: number of lines that make the cell a threat.
+    private final int[][] threatLines;
+    private final int[] lineScores = new int[2];
+    private final int[] oddThreats = new int[2];
+    private final int[] evenThreats = new int[2];
+    private final int[] openLines = new int[2];
+
+    /**
+     * Creates an evaluator for {@code board} with every piece already on it
+     * counted.
+     */
+    public Evaluator(Board board) {
+        lines = lines(board);
+
+        counts = new int[3][lines.count];
+        filledSums = new int[lines.count];
+        threatLines = new int[2][lines.rows * lines.columns];
+
+        for (int column = 0; column < lines.columns; column++) {
+            for (int height = 0; height < board.getHeight(column); height++) {
+                final int owner = board.getOwner(column, board.toRow(height));
+                if (owner != Board.EMPTY)
+                    update(owner, column, height, 1);
+            }
+        }
+    }
+
+    /**
+     * Counts a piece or obstacle that was just placed at the given cell.
+     */
+    public void add(int owner, int column, int row) {
+        update(owner, column, lines.rows - 1 - row, 1);
+    }
+
+    /**
+     * Forgets a piece that was just taken back from the given cell.
+     */
+    public void remove(int owner, int column, int row) {
+        update(owner, column, lines.rows - 1 - row, -1);
+    }
+
+    private void update(int owner, int column, int height, int change) {
+        final int cell = column * lines.rows + height;
+        for (int i = lines.cellLineStarts[cell]; i < lines.cellLineStarts[cell + 1]; i++) {
+            final int line = lines.cellLines[i];
+            scoreLine(line, -1);
+            counts[owner][line] += change;
+            filledSums[line] += change * cell;
+            scoreLine(line, 1);
+        }
+    }
+
+    /**
+     * Adds ({@code sign == 1}) or removes ({@code sign == -1}) the line's
+     * contribution to the totals.
+     */
+    private void scoreLine(int line, int sign) {
+        if (counts[Board.OBSTACLE][line] != 0)
+            return;
+
+        for (int player = Board.PLAYER_1; player <= Board.PLAYER_2; player++) {
+            final int count = counts[player][line];
+            if (count == 0 || counts[player ^ 1][line] != 0)
+                continue;
+
+            openLines[player] += sign;
+            lineScores[player] += sign * count * count;
+
+            if (count == lines.length - 1) {
+                final int cell = lines.cellSums[line] - filledSums[line];
+                final int before = threatLines[player][cell];
+                threatLines[player][cell] += sign;
+                // Only count a cell once, however many lines it finishes.
+                if (before == 0 || before + sign == 0) {
+                    if ((cell % lines.rows) % 2 == 0)
+                        oddThreats[player] += sign;
+                    else
+                        evenThreats[player] += sign;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The position's score for {@code player}. Positive scores are
+     *         good for them.
+     */
+    public int evaluate(int player) {
+        return score(player) - score(player ^ 1);
+    }
+
+    private int score(int player) {
+        return score(player, lineScores[player], oddThreats[player], evenThreats[player]);
+    }
+
+    private static int score(int player, int lineScore, int oddThreats, int evenThreats) {
+        final int goodThreats = player == Board.PLAYER_1 ? oddThreats : evenThreats;
+        final int weakThreats = player == Board.PLAYER_1 ? evenThreats : oddThreats;
+        return lineScore + goodThreats * THREAT_SCORE + weakThreats * WEAK_THREAT_SCORE;
+    }
+
+    /**
+     * Scores {@code board} by looking at every line on it, giving the same
+     * result as an evaluator that has been kept up to date. Much slower, but
+     * handy for checking and comparing.
+     */
+    public static int evaluateFully(Board board, int player) {
+        final Lines lines = lines(board);
+        final int[] lineScores = new int[2];
+        final int[] oddThreats = new int[2];
+        final int[] evenThreats = new int[2];
+        final boolean[][] threats = new boolean[2][lines.columns * lines.rows];
+        final int[] counts = new int[3];
+
+        for (int line = 0; line < lines.count; line++) {
+            Arrays.fill(counts, 0);
+            int empty = -1;
+            for (int i = line * lines.length; i < (line + 1) * lines.length; i++) {
+                final int cell = lines.lineCells[i];
+                final int owner = board.getOwner(cell / lines.rows, board.toRow(cell % lines.rows));
+                if (owner == Board.EMPTY)
+                    empty = cell;
+                else
+                    counts[owner]++;
+            }
+            if (counts[Board.OBSTACLE] != 0)
+                continue;
+
+            for (int p = Board.PLAYER_1; p <= Board.PLAYER_2; p++) {
+                final int count = counts[p];
+                if (count == 0 || counts[p ^ 1] != 0)
+                    continue;
+
+                lineScores[p] += count * count;
+                if (count == lines.length - 1 && !threats[p][empty]) {
+                    threats[p][empty] = true;
+                    if ((empty % lines.rows) % 2 == 0)
+                        oddThreats[p]++;
+                    else
+                        evenThreats[p]++;
+                }
+            }
+        }
+
+        return score(player, lineScores[player], oddThreats[player], evenThreats[player])
+                - score(player ^ 1, lineScores[player ^ 1], oddThreats[player ^ 1], evenThreats[player ^ 1]);
+    }
+
+    private static Lines lines(Board board) {
+        return cache.computeIfAbsent(new Geometry(board.getColumnCount(), board.getRowCount(),
+                board.getWinRequirement(), board.isBoardWrappingEnabled()), Lines::new);
+    }
+
+    public int getOpenLines(int player) {
+        return openLines[player];
+    }
+
+    /**
+     * @return Empty cells on odd rows, counting the bottom row as 1, that
+     *         would finish a line for {@code player}.
+     */
+    public int getOddThreats(int player) {
+        return oddThreats[player];
+    }
+
+    public int getEvenThreats(int player) {
+        return evenThreats[player];
+    }
+
+    public int getLineCount() {
+        return lines.count;
+    }
+
+    private record Geometry(int columns, int rows, int winRequirement, boolean boardWrapping) {
+    }
+
+    /**
+     * Every line on a board and which lines pass through each cell. Shared
+     * by all evaluators for the same kind of board.
+     */
+    private static final class Lines {
+
+        // Column step and height step of the four directions: vertical,
+        // horizontal, ascending diagonal, descending diagonal.
+        private static final int[] COLUMN_STEPS = { 0, 1, 1, 1 };
+        private static final int[] HEIGHT_STEPS = { 1, 0, 1, -1 };
+
+        final int columns;
+        final int rows;
+        final int length;
+        final int count;
+        // The cells of line i are lineCells[i * length] up to
+        // lineCells[(i + 1) * length].
+        final int[] lineCells;
+        // Sum of the cell indices of each line.
+        final int[] cellSums;
+        // The lines through cell i are cellLines[cellLineStarts[i]] up to
+        // cellLines[cellLineStarts[i + 1]].
+        final int[] cellLineStarts;
+        final int[] cellLines;
+
+        Lines(Geometry geometry) {
+            columns = geometry.columns();
+            rows = geometry.rows();
+            length = geometry.winRequirement();
+
+            final List<int[]> found = new ArrayList<>();
+            final Set<List<Integer>> seen = new HashSet<>();
+            for (int direction = 0; direction < COLUMN_STEPS.length; direction++) {
+                for (int column = 0; column < columns; column++) {
+                    for (int height = 0; height < rows; height++) {
+                        final int[] cells = line(column, height, direction, geometry.boardWrapping());
+                        if (cells == null)
+                            continue;
+
+                        // With wrapping, narrow boards can reach the same
+                        // cells from more than one start.
+                        final int[] sorted = cells.clone();
+                        Arrays.sort(sorted);
+                        if (seen.add(Arrays.stream(sorted).boxed().toList()))
+                            found.add(cells);
+                    }
+                }
+            }
+
+            count = found.size();
+            lineCells = new int[count * length];
+            cellSums = new int[count];
+            final int[] linesPerCell = new int[columns * rows];
+            for (int line = 0; line < count; line++) {
+                System.arraycopy(found.get(line), 0, lineCells, line * length, length);
+                for (int cell : found.get(line)) {
+                    cellSums[line] += cell;
+                    linesPerCell[cell]++;
+                }
+            }
+
+            cellLineStarts = new int[columns * rows + 1];
+            for (int cell = 0; cell < linesPerCell.length; cell++)
+                cellLineStarts[cell + 1] = cellLineStarts[cell] + linesPerCell[cell];
+
+            cellLines = new int[cellLineStarts[linesPerCell.length]];
+            final int[] next = Arrays.copyOf(cellLineStarts, linesPerCell.length);
+            for (int line = 0; line < count; line++) {
+                for (int cell : found.get(line))
+                    cellLines[next[cell]++] = line;
+            }
+        }
+
+        /**
+         * @return The cells of the line starting at the given cell or
+         *         {@code null} if it runs off the board or crosses itself.
+         */
+        private int[] line(int column, int height, int direction, boolean boardWrapping) {
+            final int[] cells = new int[length];
+            int c = column;
+            int h = height;
+            for (int i = 0; i < length; i++) {
+                if (h < 0 || h >= rows)
+                    return null;
+                if (c >= columns) {
+                    if (!boardWrapping)
+                        return null;
+                    c -= columns;
+                }
+
+                final int cell = c * rows + h;
+                for (int j = 0; j < i; j++) {
+                    if (cells[j] == cell)
+                        return null;
+                }
+                cells[i] = cell;
+
+                c += COLUMN_STEPS[direction];
+                h += HEIGHT_STEPS[direction];
+            }
+            return cells;
+        }
+
+    }
+
+}
@@ -0,0 +1,600 @@
+package com.megabyte6.connect4.engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Monte Carlo tree search with UCT selection and random playouts. It needs
+ * no evaluation function, so it copes with large and wrapped boards where
+ * alpha-beta can't see far enough ahead.
+ * <p>
+ * Every thread walks the same tree. A thread counts its visit to a node as
+ * soon as it selects it and only adds the result once the playout is done,
+ * so until then the visit looks like a loss (a virtual loss) and other
+ * threads are steered elsewhere.
+ * <p>
+ * Nodes live in preallocated parallel arrays rather than as objects, so a
+ * long think doesn't create garbage. When the engine is asked about a
+ * position that follows on from its last search, the matching part of the
+ * old tree is kept and compacted into a second set of arrays.
+ * <p>
+ * Scores are the best move's win rate scaled to {@code -1000..1000}, or a
+ * win score as in {@link AlphaBetaEngine} when a move wins on the spot.
+ * The depth is the deepest node reached and the node count is the number of
+ * playouts. Search depth limits are ignored.
+ */
+public class MctsEngine implements Engine {
+
+    public static final int DEFAULT_NODE_CAPACITY = 1 << 20;
+
+    private static final double EXPLORATION = 1.4;
+    // Larger than any visited child's UCT value.
+    private static final double UNVISITED_VALUE = 1e9;
+    // How often (in playouts) the main thread looks at the limits.
+    private static final int CHECK_INTERVAL = 256;
+    private static final long PROGRESS_INTERVAL_NANOS = 100_000_000;
+    // Longest line reported in progress updates.
+    private static final int MAX_LINE_LENGTH = 12;
+
+    private final int threads;
+    private final ThreadPoolExecutor helperPool;
+
+    private Arena arena;
+    private Arena spare;
+    private Board rootBoard;
+    private int root = -1;
+
+    private final AtomicLong stopCount = new AtomicLong();
+    private volatile boolean stopped = false;
+    private final LongAdder playouts = new LongAdder();
+    private volatile Consumer<SearchProgress> progressListener;
+
+    public MctsEngine() {
+        this(1, DEFAULT_NODE_CAPACITY);
+    }
+
+    /**
+     * @param nodeCapacity Most nodes the tree can hold. Two arrays of this
+     *                     many nodes are kept, at about 30 bytes per node.
+     */
+    public MctsEngine(int threads, int nodeCapacity) {
+        if (threads < 1)
+            throw new IllegalArgumentException("The engine needs at least one thread.");
+        if (nodeCapacity < 2)
+            throw new IllegalArgumentException("The tree needs room for at least two nodes.");
+
+        this.threads = threads;
+        arena = new Arena(nodeCapacity);
+
+        helperPool = new ThreadPoolExecutor(Math.max(threads - 1, 1), Math.max(threads - 1, 1),
+                30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                    final Thread thread = new Thread(runnable, "engine-helper");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        helperPool.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public synchronized SearchResult search(Board position, SearchLimits limits, long stopCount) {
+        final long startTime = System.nanoTime();
+        // Helpers run until this is set, so it's set for limits as well as
+        // stops.
+        stopped = this.stopCount.get() != stopCount;
+        playouts.reset();
+
+        if (position.isFull())
+            return new SearchResult(-1, 0, 0, 0, System.nanoTime() - startTime);
+
+        moveRoot(position);
+
+        final long playoutLimit = limits.maxNodes() == 0 ? Long.MAX_VALUE : limits.maxNodes();
+        final long deadline = limits.maxTimeMillis() == 0
+                ? Long.MAX_VALUE
+                : startTime + limits.maxTimeMillis() * 1_000_000L;
+
+        final List<Worker> helpers = new ArrayList<>(threads - 1);
+        final List<Future<?>> helperResults = new ArrayList<>(threads - 1);
+        final SplittableRandom seeds = new SplittableRandom(startTime);
+        for (int i = 1; i < threads; i++) {
+            final Worker helper = new Worker(seeds.split());
+            helpers.add(helper);
+            helperResults.add(helperPool.submit(() -> {
+                while (!stopped)
+                    helper.playout();
+            }));
+        }
+
+        final Worker main = new Worker(seeds.split());
+        // Always play at least one playout so that there is a move to return.
+        long count = 0;
+        long nextProgress = startTime + PROGRESS_INTERVAL_NANOS;
+        try {
+            do {
+                main.playout();
+                if (++count % CHECK_INTERVAL == 0) {
+                    final long now = System.nanoTime();
+                    // A stop can race with the start of the search and be
+                    // overwritten, so the count is looked at too.
+                    if (playouts.sum() >= playoutLimit || now >= deadline || this.stopCount.get() != stopCount) {
+                        stopped = true;
+                    } else if (now >= nextProgress) {
+                        reportProgress(main.maxDepth, now - startTime);
+                        nextProgress = now + PROGRESS_INTERVAL_NANOS;
+                    }
+                }
+            } while (!stopped);
+        } finally {
+            // Helpers would otherwise keep going if the main thread failed.
+            stopped = true;
+        }
+
+        int maxDepth = main.maxDepth;
+        for (int i = 0; i < helperResults.size(); i++) {
+            try {
+                helperResults.get(i).get();
+                maxDepth = Math.max(maxDepth, helpers.get(i).maxDepth);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                System.err.println("ERROR: Helper search failed.");
+                e.printStackTrace();
+            }
+        }
+
+        reportProgress(maxDepth, System.nanoTime() - startTime);
+        final int best = bestChild(root);
+        // The root can only be left unexpanded if the tree has no room for
+        // its children.
+        return best == -1
+                ? new SearchResult(position.nextPlayableColumn(0), 0, 0, playouts.sum(),
+                        System.nanoTime() - startTime)
+                : new SearchResult(arena.columns[best], score(best), maxDepth, playouts.sum(),
+                        System.nanoTime() - startTime);
+    }
+
+    @Override
+    public void stop() {
+        stopCount.incrementAndGet();
+        stopped = true;
+    }
+
+    @Override
+    public long getStopCount() {
+        return stopCount.get();
+    }
+
+    @Override
+    public void setProgressListener(Consumer<SearchProgress> listener) {
+        progressListener = listener;
+    }
+
+    /**
+     * Reports the most visited line through the tree. Helper threads may be
+     * adding to it meanwhile, which only makes the numbers slightly stale.
+     */
+    private void reportProgress(int depth, long elapsedNanos) {
+        final Consumer<SearchProgress> listener = progressListener;
+        if (listener == null)
+            return;
+
+        final int[] line = new int[MAX_LINE_LENGTH];
+        int length = 0;
+        int best = bestChild(root);
+        final int score = best == -1 ? 0 : score(best);
+        while (best != -1 && length < line.length) {
+            line[length++] = arena.columns[best];
+            if (arena.results[best] != Arena.UNKNOWN)
+                break;
+            best = bestChild(best);
+        }
+
+        listener.accept(new SearchProgress(rootBoard.getSideToMove(), depth, score, playouts.sum(), elapsedNanos,
+                Arrays.copyOf(line, length)));
+    }
+
+    /**
+     * Points the root at {@code position}, keeping the part of the old tree
+     * below it if the position follows on from the last search.
+     */
+    private void moveRoot(Board position) {
+        final int reused = findReusableNode(position);
+        rootBoard = position.copy();
+
+        if (reused == -1) {
+            arena.clear();
+            root = arena.allocate(1);
+            arena.initialize(root, -1, Arena.UNKNOWN);
+            return;
+        }
+
+        // Compact once the old tree takes up too much room, so that there's
+        // space left to grow the new one.
+        if (arena.size() > arena.capacity() / 2) {
+            if (spare == null)
+                spare = new Arena(arena.capacity());
+            root = arena.copySubtree(reused, spare);
+            final Arena old = arena;
+            arena = spare;
+            spare = old;
+        } else {
+            root = reused;
+        }
+    }
+
+    /**
+     * @return The node for {@code position} in the current tree or
+     *         {@code -1} if it isn't there.
+     */
+    private int findReusableNode(Board position) {
+        if (root == -1
+                || position.getColumnCount() != rootBoard.getColumnCount()
+                || position.getRowCount() != rootBoard.getRowCount()
+                || position.getWinRequirement() != rootBoard.getWinRequirement()
+                || position.isBoardWrappingEnabled() != rootBoard.isBoardWrappingEnabled()
+                || position.getMoveCount() < rootBoard.getMoveCount())
+            return -1;
+
+        final Board walk = rootBoard.copy();
+        int node = root;
+        for (int i = rootBoard.getMoveCount(); i < position.getMoveCount() && node != -1; i++) {
+            final int column = position.getMoveColumn(i);
+            node = arena.findChild(node, column);
+            if (walk.play(column, position.getMovePlayer(i)) == -1)
+                return -1;
+        }
+
+        // Also catches moves before the old root that don't match.
+        return node != -1 && walk.equals(position) ? node : -1;
+    }
+
+    /**
+     * @return The child of {@code node} to play: a winning move if there is
+     *         one, otherwise the most visited. {@code -1} if it has no
+     *         children yet.
+     */
+    private int bestChild(int node) {
+        if (arena.state(node) != Arena.EXPANDED)
+            return -1;
+
+        final int first = arena.firstChild[node];
+        final int count = arena.childCounts[node];
+        int best = first;
+        for (int child = first; child < first + count; child++) {
+            if (arena.results[child] == Arena.WIN)
+                return child;
+            if (arena.visits(child) > arena.visits(best))
+                best = child;
+        }
+        return best;
+    }
+
+    private int score(int node) {
+        if (arena.results[node] == Arena.WIN)
+            return AlphaBetaEngine.WIN_SCORE - 1;
+
+        final int visits = arena.visits(node);
+        if (visits == 0)
+            return 0;
+        // Values are counted in half points: 2 for a win, 1 for a draw.
+        final double winRate = arena.value(node) / (2.0 * visits);
+        return (int) Math.round((winRate * 2 - 1) * 1000);
+    }
+
+    public int getThreadCount() {
+        return threads;
+    }
+
+    /**
+     * One searching thread's board, path and random numbers.
+     */
+    private final class Worker {
+
+        private final Board board;
+        private final WinDetector winDetector;
+        private final SplittableRandom random;
+        private final int[] path;
+        // The player who made the move into each node on the path.
+        private final int[] movers;
+        private int maxDepth = 0;
+
+        private Worker(SplittableRandom random) {
+            board = rootBoard.copy();
+            winDetector = new WinDetector(board);
+            this.random = random;
+            path = new int[board.getEmptyCellCount() + 1];
+            movers = new int[path.length];
+        }
+
+        private void playout() {
+            board.restore(rootBoard);
+
+            int node = root;
+            int depth = 0;
+            path[0] = root;
+            movers[0] = board.getSideToMove() ^ 1;
+            arena.addVisit(root);
+
+            int winner;
+            while (true) {
+                final byte result = arena.results[node];
+                if (result != Arena.UNKNOWN) {
+                    winner = result == Arena.WIN ? movers[depth] : Board.EMPTY;
+                    break;
+                }
+
+                int state = arena.state(node);
+                if (state == Arena.UNEXPANDED && arena.tryLock(node)) {
+                    expand(node);
+                    state = arena.state(node);
+                }
+                if (state != Arena.EXPANDED) {
+                    // Another thread is expanding it or the tree is full.
+                    winner = rollout();
+                    break;
+                }
+
+                node = select(node);
+                arena.addVisit(node);
+                movers[++depth] = board.getSideToMove();
+                path[depth] = node;
+                board.play(arena.columns[node]);
+
+                if (arena.visits(node) == 1 && arena.results[node] == Arena.UNKNOWN) {
+                    // A brand new leaf, so play the rest of the game out.
+                    winner = rollout();
+                    break;
+                }
+            }
+
+            for (int i = 0; i <= depth; i++)
+                arena.addValue(path[i], winner == Board.EMPTY ? 1 : winner == movers[i] ? 2 : 0);
+
+            maxDepth = Math.max(maxDepth, depth);
+            playouts.increment();
+        }
+
+        /**
+         * Adds a child for every column that isn't full, marking the ones
+         * that end the game. Called with the node locked.
+         */
+        private void expand(int node) {
+            final int count = board.getPlayableColumnCount();
+            final int first = arena.allocate(count);
+            if (first == -1) {
+                arena.unlock(node);
+                return;
+            }
+
+            int child = first;
+            for (int column = board.nextPlayableColumn(0); column != -1;
+                    column = board.nextPlayableColumn(column + 1)) {
+                final int row = board.play(column);
+                final byte result = winDetector.isWinningMove(column, row)
+                        ? Arena.WIN
+                        : board.isFull() ? Arena.DRAW : Arena.UNKNOWN;
+                board.undo();
+                arena.initialize(child++, column, result);
+            }
+
+            arena.publishChildren(node, first, count);
+        }
+
+        private int select(int node) {
+            final int first = arena.firstChild[node];
+            final int count = arena.childCounts[node];
+            final double logVisits = Math.log(Math.max(arena.visits(node), 1));
+
+            int best = first;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int child = first; child < first + count; child++) {
+                if (arena.results[child] == Arena.WIN)
+                    return child;
+
+                final int visits = arena.visits(child);
+                final double value = visits == 0
+                        // Unvisited children are tried first, in a random
+                        // order.
+                        ? UNVISITED_VALUE + random.nextDouble()
+                        : arena.value(child) / (2.0 * visits) + EXPLORATION * Math.sqrt(logVisits / visits);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Plays random moves until the game ends.
+         *
+         * @return The winner or {@link Board#EMPTY} for a draw.
+         */
+        private int rollout() {
+            while (!board.isFull()) {
+                final int player = board.getSideToMove();
+                final int column = board.getPlayableColumn(random.nextInt(board.getPlayableColumnCount()));
+                final int row = board.play(column);
+                if (winDetector.isWinningMove(column, row))
+                    return player;
+            }
+            return Board.EMPTY;
+        }
+
+    }
+
+    /**
+     * Fixed size pool of tree nodes stored as parallel arrays. The children
+     * of a node are always next to each other.
+     */
+    private static final class Arena {
+
+        static final byte UNKNOWN = 0;
+        // The move into the node won the game.
+        static final byte WIN = 1;
+        // The move into the node filled the board.
+        static final byte DRAW = 2;
+
+        static final int UNEXPANDED = 0;
+        static final int EXPANDING = 1;
+        static final int EXPANDED = 2;
+
+        private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+        private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+        final int[] firstChild;
+        final int[] childCounts;
+        final int[] columns;
+        final byte[] results;
+        private final int[] states;
+        private final int[] visits;
+        // In half points for the player who made the move into the node.
+        private final long[] values;
+
+        private final AtomicInteger size = new AtomicInteger();
+
+        Arena(int capacity) {
+            firstChild = new int[capacity];
+            childCounts = new int[capacity];
+            columns = new int[capacity];
+            results = new byte[capacity];
+            states = new int[capacity];
+            visits = new int[capacity];
+            values = new long[capacity];
+        }
+
+        int capacity() {
+            return firstChild.length;
+        }
+
+        int size() {
+            return size.get();
+        }
+
+        void clear() {
+            size.set(0);
+        }
+
+        /**
+         * @return The first of {@code count} new nodes or {@code -1} if
+         *         there isn't room.
+         */
+        int allocate(int count) {
+            while (true) {
+                final int first = size.get();
+                if (first + count > capacity())
+                    return -1;
+                if (size.compareAndSet(first, first + count))
+                    return first;
+            }
+        }
+
+        void initialize(int node, int column, byte result) {
+            firstChild[node] = -1;
+            childCounts[node] = 0;
+            columns[node] = column;
+            results[node] = result;
+            states[node] = UNEXPANDED;
+            visits[node] = 0;
+            values[node] = 0;
+        }
+
+        int state(int node) {
+            return (int) INTS.getAcquire(states, node);
+        }
+
+        boolean tryLock(int node) {
+            return INTS.compareAndSet(states, node, UNEXPANDED, EXPANDING);
+        }
+
+        void unlock(int node) {
+            INTS.setRelease(states, node, UNEXPANDED);
+        }
+
+        void publishChildren(int node, int first, int count) {
+            firstChild[node] = first;
+            childCounts[node] = count;
+            // Readers that see EXPANDED also see the children.
+            INTS.setRelease(states, node, EXPANDED);
+        }
+
+        int findChild(int node, int column) {
+            if (state(node) != EXPANDED)
+                return -1;
+            for (int child = firstChild[node]; child < firstChild[node] + childCounts[node]; child++) {
+                if (columns[child] == column)
+                    return child;
+            }
+            return -1;
+        }
+
+        void addVisit(int node) {
+            INTS.getAndAdd(visits, node, 1);
+        }
+
+        void addValue(int node, int value) {
+            LONGS.getAndAdd(values, node, (long) value);
+        }
+
+        int visits(int node) {
+            return (int) INTS.getOpaque(visits, node);
+        }
+
+        long value(int node) {
+            return (long) LONGS.getOpaque(values, node);
+        }
+
+        /**
+         * Copies the subtree under {@code node} into the empty start of
+         * {@code target}, breadth first so that children stay together.
+         * Only called while no search is running.
+         *
+         * @return The subtree's root in {@code target}.
+         */
+        int copySubtree(int node, Arena target) {
+            target.clear();
+            final int newRoot = target.allocate(1);
+            copyNode(node, target, newRoot);
+
+            // Until a copied node is reached by the scan, its firstChild
+            // still points at its children in this arena.
+            for (int copied = newRoot; copied < target.size(); copied++) {
+                final int count = target.childCounts[copied];
+                if (target.states[copied] != EXPANDED || count == 0)
+                    continue;
+
+                final int oldFirst = target.firstChild[copied];
+                final int newFirst = target.allocate(count);
+                for (int i = 0; i < count; i++)
+                    copyNode(oldFirst + i, target, newFirst + i);
+                target.firstChild[copied] = newFirst;
+            }
+            return newRoot;
+        }
+
+        private void copyNode(int node, Arena target, int to) {
+            target.firstChild[to] = firstChild[node];
+            target.childCounts[to] = childCounts[node];
+            target.columns[to] = columns[node];
+            target.results[to] = results[node];
+            target.states[to] = states[node];
+            target.visits[to] = visits[node];
+            target.values[to] = values[node];
+        }
+
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.megabyte6.connect4.engine;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of moves packed into a {@code long[]}. Indexed reads, appends
+ * and truncation are all O(1) and nothing is boxed.
+ * <p>
+ * Each move is stored as {@code column << 32 | row << 1 | player}, where
+ * {@code player} is {@link Board#PLAYER_1} or {@link Board#PLAYER_2}.
+ */
+public class MoveLog {
+
+    @FunctionalInterface
+    public interface MoveVisitor {
+        void visit(int index, int player, int column, int row);
+    }
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private long[] moves;
+    private int size = 0;
+
+    public MoveLog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveLog(int initialCapacity) {
+        moves = new long[Math.max(initialCapacity, 1)];
+    }
+
+    public void add(int player, int column, int row) {
+        if (size == moves.length)
+            moves = Arrays.copyOf(moves, moves.length * 2);
+        moves[size++] = (long) column << 32 | (long) row << 1 | player;
+    }
+
+    /**
+     * Drops every move from {@code newSize} onwards. Does nothing if the log
+     * is already that short.
+     */
+    public void truncate(int newSize) {
+        if (newSize < 0)
+            throw new IllegalArgumentException("Size cannot be negative.");
+        size = Math.min(size, newSize);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getPlayer(int index) {
+        return (int) get(index) & 1;
+    }
+
+    public int getColumn(int index) {
+        return (int) (get(index) >>> 32);
+    }
+
+    public int getRow(int index) {
+        return (int) get(index) >>> 1;
+    }
+
+    private long get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(index);
+        return moves[index];
+    }
+
+    /**
+     * Visits the moves from {@code from} (inclusive) to {@code to}
+     * (exclusive) in order without allocating.
+     */
+    public void forEach(int from, int to, MoveVisitor visitor) {
+        if (from < 0 || to > size || from > to)
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") is out of bounds.");
+
+        for (int i = from; i < to; i++) {
+            final long move = moves[i];
+            visitor.visit(i, (int) move & 1, (int) (move >>> 32), (int) move >>> 1);
+        }
+    }
+
+    public void forEach(MoveVisitor visitor) {
+        forEach(0, size, visitor);
+    }
+
+}
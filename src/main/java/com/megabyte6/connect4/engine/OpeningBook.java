@@ -0,0 +1,249 @@
+package com.megabyte6.connect4.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read only book of opening moves, looked up straight from a memory mapped
+ * file. Opening a book doesn't read it, so it loads instantly, and lookups
+ * don't allocate or copy anything onto the heap.
+ * <p>
+ * The file is a header followed by entries sorted by key. Each entry is the
+ * position's {@link Board#canonicalKey() canonical key} and a value packing
+ * the score and the best column, as seen from the canonical side. Mirrored
+ * positions share an entry, and the column is mirrored back on lookup.
+ * <p>
+ * Books are made with player 1 moving first. Positions from games that
+ * player 2 started are looked up with the players swapped, which has the
+ * same best move and score for the side to move.
+ * <p>
+ * Books are made by {@link OpeningBookGenerator}.
+ */
+public class OpeningBook {
+
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+
+    // "C4BK"
+    private static final int MAGIC = 0x43344B42;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int ENTRY_BYTES = 12;
+
+    private static final int COLUMN_BITS = 8;
+    private static final int COLUMN_MASK = (1 << COLUMN_BITS) - 1;
+    // Columns have to fit in the value next to the score.
+    public static final int MAX_COLUMNS = COLUMN_MASK + 1;
+
+    private final MappedByteBuffer buffer;
+    private final int columns;
+    private final int rows;
+    private final int winRequirement;
+    private final boolean boardWrapping;
+    private final int plies;
+    private final int entryCount;
+
+    private OpeningBook(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC)
+            throw new IOException("Not an opening book.");
+        if (buffer.getInt(4) != VERSION)
+            throw new IOException("Unsupported opening book version " + buffer.getInt(4) + ".");
+
+        columns = buffer.getInt(8);
+        rows = buffer.getInt(12);
+        winRequirement = buffer.getInt(16);
+        boardWrapping = buffer.getInt(20) != 0;
+        plies = buffer.getInt(24);
+        entryCount = buffer.getInt(28);
+
+        if ((long) HEADER_BYTES + (long) entryCount * ENTRY_BYTES != buffer.capacity())
+            throw new IOException("Opening book is truncated.");
+    }
+
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Opening book is too large.");
+            // The mapping stays valid after the channel is closed.
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes a book with the given keys and values. {@code keys} is sorted in
+     * place, along with {@code values}. The file is written next to
+     * {@code path} first and moved into place once it's complete.
+     */
+    public static void write(Path path, Board geometry, int plies, long[] keys, int[] values)
+            throws IOException {
+        if (keys.length != values.length)
+            throw new IllegalArgumentException("Every key needs a value.");
+
+        sort(keys, values, 0, keys.length);
+
+        final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(geometry.getColumnCount())
+                    .putInt(geometry.getRowCount())
+                    .putInt(geometry.getWinRequirement())
+                    .putInt(geometry.isBoardWrappingEnabled() ? 1 : 0)
+                    .putInt(plies)
+                    .putInt(keys.length)
+                    .flip();
+            writeFully(channel, header);
+
+            final ByteBuffer entries = ByteBuffer.allocate(ENTRY_BYTES * 4096).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < keys.length; i++) {
+                entries.putLong(keys[i]).putInt(values[i]);
+                if (!entries.hasRemaining()) {
+                    entries.flip();
+                    writeFully(channel, entries);
+                    entries.clear();
+                }
+            }
+            entries.flip();
+            writeFully(channel, entries);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    /**
+     * Sorts by key, keeping each value with its key. Keys are Zobrist keys,
+     * so they're random enough for a plain quicksort.
+     */
+    private static void sort(long[] keys, int[] values, int from, int to) {
+        while (to - from > 1) {
+            final long pivot = keys[(from + to) >>> 1];
+            int low = from;
+            int high = to - 1;
+            while (low <= high) {
+                while (keys[low] < pivot)
+                    low++;
+                while (keys[high] > pivot)
+                    high--;
+                if (low <= high)
+                    swap(keys, values, low++, high--);
+            }
+            // Recurse into the smaller half to bound the stack depth.
+            if (high - from < to - low) {
+                sort(keys, values, from, high + 1);
+                from = low;
+            } else {
+                sort(keys, values, low, to);
+                to = high + 1;
+            }
+        }
+    }
+
+    private static void swap(long[] keys, int[] values, int a, int b) {
+        final long key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        final int value = values[a];
+        values[a] = values[b];
+        values[b] = value;
+    }
+
+    /**
+     * @return {@code true} if the book was made for boards like
+     *         {@code board}.
+     */
+    public boolean matches(Board board) {
+        return board.getColumnCount() == columns
+                && board.getRowCount() == rows
+                && board.getWinRequirement() == winRequirement
+                && board.isBoardWrappingEnabled() == boardWrapping;
+    }
+
+    /**
+     * @return The packed entry for {@code board}, with the column already
+     *         mirrored to match it, or {@link #NOT_FOUND}. Use
+     *         {@link #column(int)} and {@link #score(int)} to unpack it.
+     */
+    public int probe(Board board) {
+        if (!matches(board) || board.getMoveCount() > plies)
+            return NOT_FOUND;
+
+        int value = find(board.canonicalKey());
+        boolean mirrored = board.isCanonicalKeyMirrored();
+        if (value == NOT_FOUND) {
+            value = find(board.colourSwappedCanonicalKey());
+            mirrored = board.isColourSwappedCanonicalKeyMirrored();
+        }
+        if (value == NOT_FOUND || !mirrored)
+            return value;
+        return pack(score(value), columns - 1 - column(value));
+    }
+
+    private int find(long key) {
+        int low = 0;
+        int high = entryCount - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int offset = HEADER_BYTES + middle * ENTRY_BYTES;
+            final long middleKey = buffer.getLong(offset);
+            if (middleKey < key)
+                low = middle + 1;
+            else if (middleKey > key)
+                high = middle - 1;
+            else
+                return buffer.getInt(offset + 8);
+        }
+        return NOT_FOUND;
+    }
+
+    public static int pack(int score, int column) {
+        if (column < 0 || column >= MAX_COLUMNS)
+            throw new IllegalArgumentException("Column must be between 0 and " + (MAX_COLUMNS - 1) + ".");
+        return score << COLUMN_BITS | column;
+    }
+
+    public static int score(int value) {
+        return value >> COLUMN_BITS;
+    }
+
+    public static int column(int value) {
+        return value & COLUMN_MASK;
+    }
+
+    /**
+     * @return The usual file name for a book for boards like {@code board},
+     *         such as {@code 7x6-4.book} or {@code 7x6-4-wrapping.book}.
+     */
+    public static String fileName(int columns, int rows, int winRequirement, boolean boardWrapping) {
+        return columns + "x" + rows + "-" + winRequirement + (boardWrapping ? "-wrapping" : "") + ".book";
+    }
+
+    public int getPlies() {
+        return plies;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    @Override
+    public String toString() {
+        return "OpeningBook(" + fileName(columns, rows, winRequirement, boardWrapping)
+                + ", plies=" + plies + ", entries=" + entryCount + ")";
+    }
+
+}
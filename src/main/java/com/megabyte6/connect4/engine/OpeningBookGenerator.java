@@ -0,0 +1,168 @@
+package com.megabyte6.connect4.engine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds an {@link OpeningBook} offline by searching every position up to a
+ * number of plies from the empty board. Positions that are mirror images of
+ * each other are only searched once, and positions where the game is
+ * already over are left out.
+ * <p>
+ * A depth of {@code 0} solves every position exactly with the
+ * {@link Solver} instead, which only works for boards it supports. Scores
+ * are then solver scores rather than search scores.
+ * <p>
+ * Arguments:
+ * {@code <columns> <rows> <winRequirement> <plies> [depth] [threads] [wrapping] [output]}
+ * <p>
+ * The book is written to {@code books/} under its usual file name unless
+ * an output path is given.
+ */
+public class OpeningBookGenerator {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("Usage: <columns> <rows> <winRequirement> <plies> [depth] [threads] [wrapping] [output]");
+            System.exit(1);
+        }
+
+        final int columns = Integer.parseInt(args[0]);
+        final int rows = Integer.parseInt(args[1]);
+        final int winRequirement = Integer.parseInt(args[2]);
+        final int plies = Integer.parseInt(args[3]);
+        final int depth = args.length > 4 ? Integer.parseInt(args[4]) : 14;
+        final int threads = args.length > 5
+                ? Integer.parseInt(args[5])
+                : Runtime.getRuntime().availableProcessors();
+        final boolean boardWrapping = args.length > 6 && Boolean.parseBoolean(args[6]);
+        final Path output = args.length > 7
+                ? Path.of(args[7])
+                : Path.of("books", OpeningBook.fileName(columns, rows, winRequirement, boardWrapping));
+
+        if (columns > OpeningBook.MAX_COLUMNS)
+            throw new IllegalArgumentException("Books support at most " + OpeningBook.MAX_COLUMNS + " columns.");
+
+        final Board empty = new Board(columns, rows, winRequirement, boardWrapping);
+        if (depth == 0 && !Solver.canSolve(empty))
+            throw new IllegalArgumentException("The solver can't solve this board. Use a search depth instead.");
+        final long startTime = System.nanoTime();
+
+        final List<int[]> positions = collectPositions(empty, plies);
+        System.out.printf("%s %d positions with %d threads.%n",
+                depth == 0 ? "Solving" : "Searching to depth " + depth + " in", positions.size(), threads);
+
+        final long[] keys = new long[positions.size()];
+        final int[] values = new int[positions.size()];
+        search(empty, positions, depth, threads, keys, values);
+
+        if (output.getParent() != null)
+            Files.createDirectories(output.getParent());
+        OpeningBook.write(output, empty, plies, keys, values);
+
+        System.out.printf("Wrote %d entries to %s in %.1f s.%n", keys.length, output,
+                (System.nanoTime() - startTime) / 1e9);
+    }
+
+    /**
+     * @return The moves leading to every distinct position up to
+     *         {@code plies} moves in that isn't over yet.
+     */
+    static List<int[]> collectPositions(Board empty, int plies) {
+        final List<int[]> positions = new ArrayList<>();
+        final Set<Long> seen = new HashSet<>();
+        final Board board = empty.copy();
+        collectPositions(board, new WinDetector(board), plies, new int[plies], positions, seen);
+        return positions;
+    }
+
+    private static void collectPositions(Board board, WinDetector winDetector, int plies, int[] moves,
+            List<int[]> positions, Set<Long> seen) {
+        if (!seen.add(board.canonicalKey()))
+            return;
+
+        final int ply = board.getMoveCount();
+        positions.add(Arrays.copyOf(moves, ply));
+        if (ply == plies)
+            return;
+
+        for (int column = board.nextPlayableColumn(0); column != -1;
+                column = board.nextPlayableColumn(column + 1)) {
+            final int row = board.play(column);
+            if (!winDetector.isWinningMove(column, row) && !board.isFull()) {
+                moves[ply] = column;
+                collectPositions(board, winDetector, plies, moves, positions, seen);
+            }
+            board.undo();
+        }
+    }
+
+    private static void search(Board empty, List<int[]> positions, int depth, int threads, long[] keys,
+            int[] values) throws IOException {
+        final TranspositionTable table = new TranspositionTable(256);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger done = new AtomicInteger();
+
+        final List<Future<?>> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.add(executor.submit(() -> {
+                final AlphaBetaEngine engine = new AlphaBetaEngine(table);
+                final Solver solver = new Solver(table);
+                final Board board = empty.copy();
+                for (int index = next.getAndIncrement(); index < positions.size();
+                        index = next.getAndIncrement()) {
+                    board.restore(empty);
+                    for (int column : positions.get(index))
+                        board.play(column);
+
+                    final int bestColumn;
+                    final int score;
+                    if (depth == 0) {
+                        final int[] scores = solver.analyze(board);
+                        bestColumn = Solver.bestColumn(scores);
+                        score = scores[bestColumn];
+                    } else {
+                        final SearchResult result = engine.search(board, SearchLimits.depth(depth));
+                        bestColumn = result.bestColumn();
+                        score = result.score();
+                    }
+
+                    final int column = board.isCanonicalKeyMirrored()
+                            ? board.getColumnCount() - 1 - bestColumn
+                            : bestColumn;
+                    keys[index] = board.canonicalKey();
+                    values[index] = OpeningBook.pack(score, column);
+
+                    final int count = done.incrementAndGet();
+                    if (count % 1000 == 0)
+                        System.out.printf("%d/%d%n", count, positions.size());
+                }
+            }));
+        }
+
+        try {
+            for (Future<?> worker : workers)
+                worker.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Book generation interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Book generation failed.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.megabyte6.connect4.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Lazy SMP: several {@link AlphaBetaEngine}s search the same position at the
+ * same time and share what they find through one
+ * {@link TranspositionTable}. The calling thread runs the main search and
+ * its result is the one returned. Helper threads only exist to fill the
+ * table and are stopped as soon as the main search finishes.
+ * <p>
+ * The node count of the result covers every thread, so
+ * {@link SearchResult#nodesPerSecond()} shows the combined throughput. Node
+ * limits only apply to the main search, unless there is no other limit. Then
+ * each helper keeps to the node limit too.
+ */
+public class ParallelSearch implements Engine {
+
+    private final TranspositionTable table;
+    private final int threads;
+    private final ThreadPoolExecutor helperPool;
+
+    private final AtomicLong stopCount = new AtomicLong();
+    private volatile List<AlphaBetaEngine> running = List.of();
+    private volatile Consumer<SearchProgress> progressListener;
+
+    public ParallelSearch(TranspositionTable table, int threads) {
+        if (table == null)
+            throw new IllegalArgumentException("Parallel search needs a transposition table to share.");
+        if (threads < 1)
+            throw new IllegalArgumentException("Parallel search needs at least one thread.");
+
+        this.table = table;
+        this.threads = threads;
+
+        // Idle helper threads die off, so an unused engine doesn't hold on
+        // to them.
+        helperPool = new ThreadPoolExecutor(Math.max(threads - 1, 1), Math.max(threads - 1, 1),
+                30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                    final Thread thread = new Thread(runnable, "engine-helper");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        helperPool.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public SearchResult search(Board position, SearchLimits limits, long stopCount) {
+        final AlphaBetaEngine main = new AlphaBetaEngine(table);
+        final List<AlphaBetaEngine> engines = new ArrayList<>(threads);
+        engines.add(main);
+
+        // Without a depth or time limit, the node limit is the only thing
+        // that bounds a helper if it never gets stopped.
+        final SearchLimits helperLimits = limits.maxDepth() == 0 && limits.maxTimeMillis() == 0
+                ? limits
+                : new SearchLimits(limits.maxDepth(), 0, limits.maxTimeMillis());
+        final List<Future<SearchResult>> helperResults = new ArrayList<>(threads - 1);
+        for (int i = 1; i < threads; i++) {
+            final AlphaBetaEngine helper = new AlphaBetaEngine(table, 1 + i % 2);
+            engines.add(helper);
+            // Helpers may not have started by the time the main search
+            // stops them.
+            final long helperStopCount = helper.getStopCount();
+            helperResults.add(helperPool.submit(() -> helper.search(position, helperLimits, helperStopCount)));
+        }
+        final long mainStopCount = main.getStopCount();
+        running = engines;
+        // A stop from before running was set didn't reach these engines.
+        if (this.stopCount.get() != stopCount) {
+            for (AlphaBetaEngine engine : engines)
+                engine.stop();
+        }
+
+        // Progress comes from the main search, with every thread's nodes.
+        final Consumer<SearchProgress> listener = progressListener;
+        if (listener != null) {
+            main.setProgressListener(progress -> {
+                long nodes = 0;
+                for (AlphaBetaEngine engine : engines)
+                    nodes += engine.getNodeCount();
+                listener.accept(new SearchProgress(progress.sideToMove(), progress.depth(), progress.score(),
+                        nodes, progress.elapsedNanos(), progress.line()));
+            });
+        }
+
+        final SearchResult result = main.search(position, limits, mainStopCount);
+
+        long nodes = result.nodes();
+        for (int i = 1; i < engines.size(); i++)
+            engines.get(i).stop();
+        for (Future<SearchResult> helperResult : helperResults) {
+            try {
+                nodes += helperResult.get().nodes();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                System.err.println("ERROR: Helper search failed.");
+                e.printStackTrace();
+            }
+        }
+        running = List.of();
+
+        return new SearchResult(result.bestColumn(), result.score(), result.depth(), nodes, result.elapsedNanos());
+    }
+
+    @Override
+    public void stop() {
+        stopCount.incrementAndGet();
+        for (AlphaBetaEngine engine : running)
+            engine.stop();
+    }
+
+    @Override
+    public long getStopCount() {
+        return stopCount.get();
+    }
+
+    @Override
+    public void setProgressListener(Consumer<SearchProgress> listener) {
+        progressListener = listener;
+    }
+
+    public int getThreadCount() {
+        return threads;
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.megabyte6.connect4.engine;
+
+import java.util.SplittableRandom;
+
+/**
+ * Cheap move choice for simulations. Policies may keep state, so every
+ * thread needs its own instance.
+ */
+@FunctionalInterface
+public interface Policy {
+
+    /**
+     * @return A column that isn't full. The board must not be full and must
+     *         be left as it was found.
+     */
+    int chooseColumn(Board board, SplittableRandom random);
+
+    /**
+     * Plays a random column that isn't full.
+     */
+    static Policy random() {
+        return (board, random) -> board.getPlayableColumn(random.nextInt(board.getPlayableColumnCount()));
+    }
+
+    /**
+     * Wins if it can, blocks the opponent's immediate win if it has to, and
+     * plays randomly otherwise.
+     */
+    static Policy greedy() {
+        // Reused for as long as the policy is asked about the same board.
+        final WinDetector[] cached = new WinDetector[1];
+        return (board, random) -> {
+            if (cached[0] == null || cached[0].getBoard() != board)
+                cached[0] = new WinDetector(board);
+            final WinDetector winDetector = cached[0];
+
+            final int win = findWinningColumn(board, winDetector);
+            if (win != -1)
+                return win;
+
+            board.swapSides();
+            final int block = findWinningColumn(board, winDetector);
+            board.swapSides();
+            if (block != -1)
+                return block;
+
+            return board.getPlayableColumn(random.nextInt(board.getPlayableColumnCount()));
+        };
+    }
+
+    /**
+     * Plays the move a fixed depth {@link AlphaBetaEngine} search picks.
+     */
+    static Policy alphaBeta(int depth) {
+        final AlphaBetaEngine engine = new AlphaBetaEngine();
+        final SearchLimits limits = SearchLimits.depth(depth);
+        return (board, random) -> engine.search(board, limits).bestColumn();
+    }
+
+    /**
+     * @return A column that wins immediately for the side to move or
+     *         {@code -1} if there isn't one.
+     */
+    private static int findWinningColumn(Board board, WinDetector winDetector) {
+        for (int column = board.nextPlayableColumn(0); column != -1;
+                column = board.nextPlayableColumn(column + 1)) {
+            final int row = board.play(column);
+            final boolean wins = winDetector.isWinningMove(column, row);
+            board.undo();
+            if (wins)
+                return column;
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.megabyte6.connect4.engine;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Keeps an engine busy while its opponent is thinking. It guesses the
+ * opponent's reply with a short search and then searches the position after
+ * that reply until it is stopped, which fills the engine's transposition
+ * table or search tree on the way.
+ * <p>
+ * When the opponent's move is known, {@link #stop(Board)} says whether the
+ * guess was right. If it was, the pondering result and the time spent on it
+ * can be counted towards the engine's next search. If it wasn't, the work
+ * is thrown away apart from what the engine kept.
+ * <p>
+ * Pondering runs on the given executor, which should be the one the
+ * engine's normal searches run on so that the two never overlap. Start and
+ * stop it from one thread.
+ */
+public class Ponderer {
+
+    // Time spent guessing the opponent's reply.
+    private static final long PREDICTION_MILLIS = 100;
+
+    private final Engine engine;
+    private final Executor executor;
+    private Job job;
+
+    public Ponderer(Engine engine, Executor executor) {
+        if (engine == null || executor == null)
+            throw new IllegalArgumentException("Pondering needs an engine and an executor.");
+
+        this.engine = engine;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts pondering {@code position}, where it's the engine's opponent's
+     * turn. Any earlier pondering is cancelled.
+     */
+    public void start(Board position) {
+        cancel();
+        if (position.isFull())
+            return;
+
+        // Stops from here on end the job, even if it hasn't started yet.
+        job = new Job(position.copy(), engine.getStopCount());
+        executor.execute(job);
+    }
+
+    /**
+     * Stops pondering now that the opponent has moved.
+     *
+     * @param actual The position after the opponent's move.
+     * @return Completes once pondering has finished on the executor, with
+     *         its result if the opponent played the guessed move or
+     *         {@code null} if not. The result's elapsed time and node count
+     *         cover all of the pondering done on {@code actual}. A task
+     *         queued on the executor after this call can wait for it
+     *         without blocking.
+     */
+    public CompletableFuture<SearchResult> stop(Board actual) {
+        final Job stopped = job;
+        cancel();
+        if (stopped == null)
+            return CompletableFuture.completedFuture(null);
+        return stopped.done.thenApply(result -> actual.equals(stopped.predicted) ? result : null);
+    }
+
+    /**
+     * Stops pondering and forgets about it.
+     */
+    public void cancel() {
+        if (job == null)
+            return;
+
+        job.cancelled = true;
+        engine.stop();
+        job = null;
+    }
+
+    public boolean isPondering() {
+        return job != null;
+    }
+
+    private final class Job implements Runnable {
+
+        private final Board position;
+        private final long stopCount;
+        private final CompletableFuture<SearchResult> done = new CompletableFuture<>();
+        private volatile boolean cancelled = false;
+        private volatile Board predicted;
+
+        Job(Board position, long stopCount) {
+            this.position = position;
+            this.stopCount = stopCount;
+        }
+
+        @Override
+        public void run() {
+            SearchResult result = null;
+            try {
+                if (cancelled)
+                    return;
+
+                final int reply = engine.search(position, SearchLimits.time(PREDICTION_MILLIS), stopCount)
+                        .bestColumn();
+                if (cancelled || reply == -1)
+                    return;
+
+                final Board next = position.copy();
+                final int row = next.play(reply);
+                // Nothing to ponder if the game ends.
+                if (new WinDetector(next).isWinningMove(reply, row) || next.isFull())
+                    return;
+                predicted = next;
+
+                // One search until stopped, so that iterative deepening
+                // carries on from where it got to. Book moves and forced
+                // results come back straight away.
+                result = engine.search(next, SearchLimits.unlimited(), stopCount);
+            } finally {
+                done.complete(result);
+            }
+        }
+
+    }
+
+}
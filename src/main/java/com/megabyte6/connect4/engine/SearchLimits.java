@@ -0,0 +1,33 @@
+package com.megabyte6.connect4.engine;
+
+/**
+ * Budget for a single search. A value of {@code 0} means there is no limit
+ * of that kind.
+ */
+public record SearchLimits(int maxDepth, long maxNodes, long maxTimeMillis) {
+
+    public SearchLimits {
+        if (maxDepth < 0 || maxNodes < 0 || maxTimeMillis < 0)
+            throw new IllegalArgumentException("Search limits cannot be negative.");
+    }
+
+    /**
+     * Searches until stopped.
+     */
+    public static SearchLimits unlimited() {
+        return new SearchLimits(0, 0, 0);
+    }
+
+    public static SearchLimits time(long millis) {
+        return new SearchLimits(0, 0, millis);
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(0, nodes, 0);
+    }
+
+}
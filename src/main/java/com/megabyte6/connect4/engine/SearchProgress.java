@@ -0,0 +1,32 @@
+package com.megabyte6.connect4.engine;
+
+/**
+ * How a search that is still running is getting on, for showing to the
+ * player while the engine thinks.
+ *
+ * @param sideToMove   Player to move in the position being searched.
+ * @param depth        Deepest iteration that was fully searched.
+ * @param score        Score of the best move so far from the point of view
+ *                     of {@code sideToMove}.
+ * @param nodes        Number of positions visited so far.
+ * @param elapsedNanos Wall time spent searching so far.
+ * @param line         Best line of play found, starting with
+ *                     {@code sideToMove}'s move. It may stop short of the
+ *                     search depth.
+ */
+public record SearchProgress(int sideToMove, int depth, int score, long nodes, long elapsedNanos, int[] line) {
+
+    public long nodesPerSecond() {
+        return elapsedNanos == 0
+                ? 0
+                : nodes * 1_000_000_000L / elapsedNanos;
+    }
+
+    /**
+     * @return The first move of the line or {@code -1} if it's empty.
+     */
+    public int bestColumn() {
+        return line.length == 0 ? -1 : line[0];
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.megabyte6.connect4.engine;
+
+/**
+ * @param bestColumn   Column to play or {@code -1} if there were no legal
+ *                     moves.
+ * @param score        Score of the best move from the point of view of the
+ *                     side to move.
+ * @param depth        Deepest iteration that was fully searched.
+ * @param nodes        Number of positions visited.
+ * @param elapsedNanos Wall time spent searching.
+ */
+public record SearchResult(int bestColumn, int score, int depth, long nodes, long elapsedNanos) {
+
+    public long nodesPerSecond() {
+        return elapsedNanos == 0
+                ? 0
+                : nodes * 1_000_000_000L / elapsedNanos;
+    }
+
+}
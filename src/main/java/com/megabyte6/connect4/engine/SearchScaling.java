@@ -0,0 +1,40 @@
+package com.megabyte6.connect4.engine;
+
+/**
+ * Prints how search throughput scales with the number of threads. Each
+ * thread count searches the same position for the same amount of time with
+ * an empty table.
+ * <p>
+ * Arguments: {@code [maxThreads] [millisPerRun] [columns] [rows] [winRequirement]}
+ */
+public class SearchScaling {
+
+    public static void main(String[] args) {
+        final int maxThreads = args.length > 0
+                ? Integer.parseInt(args[0])
+                : Runtime.getRuntime().availableProcessors();
+        final long millis = args.length > 1 ? Long.parseLong(args[1]) : 5000;
+        final int columns = args.length > 2 ? Integer.parseInt(args[2]) : 7;
+        final int rows = args.length > 3 ? Integer.parseInt(args[3]) : 6;
+        final int winRequirement = args.length > 4 ? Integer.parseInt(args[4]) : 4;
+
+        final Board position = new Board(columns, rows, winRequirement, false);
+        final TranspositionTable table = new TranspositionTable(256);
+
+        System.out.printf("%8s %14s %8s %6s%n", "threads", "nodes/sec", "speedup", "depth");
+        long baseline = 0;
+        for (int threads = 1; threads <= maxThreads; threads = threads < maxThreads
+                ? Math.min(threads * 2, maxThreads)
+                : threads + 1) {
+            table.clear();
+            final SearchResult result = new ParallelSearch(table, threads)
+                    .search(position, SearchLimits.time(millis));
+
+            if (baseline == 0)
+                baseline = Math.max(result.nodesPerSecond(), 1);
+            System.out.printf("%8d %14d %7.2fx %6d%n", threads, result.nodesPerSecond(),
+                    (double) result.nodesPerSecond() / baseline, result.depth());
+        }
+    }
+
+}
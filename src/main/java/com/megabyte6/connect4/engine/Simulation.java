@@ -0,0 +1,153 @@
+package com.megabyte6.connect4.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Plays many games between two policies as fast as possible. Every thread
+ * has its own board, policies, random number generator and tallies, so
+ * nothing is shared until the results are added up at the end.
+ */
+public class Simulation {
+
+    /**
+     * @param games        Number of games played.
+     * @param player1Wins  Games won by the first player.
+     * @param player2Wins  Games won by the second player.
+     * @param draws        Games that filled the board.
+     * @param totalMoves   Moves played over every game.
+     * @param elapsedNanos Wall time the simulation took.
+     */
+    public record Result(long games, long player1Wins, long player2Wins, long draws, long totalMoves,
+            long elapsedNanos) {
+
+        public double gamesPerSecond() {
+            return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+        }
+
+        public double player1WinRate() {
+            return games == 0 ? 0 : (double) player1Wins / games;
+        }
+
+        public double player2WinRate() {
+            return games == 0 ? 0 : (double) player2Wins / games;
+        }
+
+        public double drawRate() {
+            return games == 0 ? 0 : (double) draws / games;
+        }
+
+        public double averageGameLength() {
+            return games == 0 ? 0 : (double) totalMoves / games;
+        }
+
+    }
+
+    private final int columns;
+    private final int rows;
+    private final int winRequirement;
+    private final boolean boardWrapping;
+    private final int obstacles;
+    private final Supplier<Policy> player1Policy;
+    private final Supplier<Policy> player2Policy;
+
+    /**
+     * @param obstacles     Obstacles dropped into random columns before each
+     *                      game.
+     * @param player1Policy Creates the first player's policy for each
+     *                      thread.
+     * @param player2Policy Creates the second player's policy for each
+     *                      thread.
+     */
+    public Simulation(int columns, int rows, int winRequirement, boolean boardWrapping, int obstacles,
+            Supplier<Policy> player1Policy, Supplier<Policy> player2Policy) {
+        if (obstacles < 0 || obstacles >= columns * rows)
+            throw new IllegalArgumentException("Obstacles must leave room to play.");
+
+        this.columns = columns;
+        this.rows = rows;
+        this.winRequirement = winRequirement;
+        this.boardWrapping = boardWrapping;
+        this.obstacles = obstacles;
+        this.player1Policy = player1Policy;
+        this.player2Policy = player2Policy;
+    }
+
+    public Result run(long games, int threads, long seed) {
+        if (games < 0 || threads < 1)
+            throw new IllegalArgumentException("Need a non-negative number of games and at least one thread.");
+
+        final long startTime = System.nanoTime();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "simulation");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        final SplittableRandom seeds = new SplittableRandom(seed);
+        final List<Future<long[]>> tallies = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            final long share = games / threads + (i < games % threads ? 1 : 0);
+            final SplittableRandom random = seeds.split();
+            tallies.add(executor.submit(() -> play(share, random)));
+        }
+
+        final long[] total = new long[4];
+        try {
+            for (Future<long[]> tally : tallies) {
+                final long[] counts = tally.get();
+                for (int i = 0; i < total.length; i++)
+                    total[i] += counts[i];
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation failed.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new Result(games, total[0], total[1], total[2], total[3], System.nanoTime() - startTime);
+    }
+
+    /**
+     * @return Player 1 wins, player 2 wins, draws and moves played.
+     */
+    private long[] play(long games, SplittableRandom random) {
+        final Policy[] policies = { player1Policy.get(), player2Policy.get() };
+        final Board empty = new Board(columns, rows, winRequirement, boardWrapping);
+        final Board board = empty.copy();
+        final WinDetector winDetector = new WinDetector(board);
+        final long[] counts = new long[4];
+
+        for (long game = 0; game < games; game++) {
+            board.restore(empty);
+            for (int i = 0; i < obstacles; i++)
+                board.placeObstacle(board.getPlayableColumn(random.nextInt(board.getPlayableColumnCount())));
+
+            int winner = -1;
+            while (!board.isFull()) {
+                final int player = board.getSideToMove();
+                final int column = policies[player].chooseColumn(board, random);
+                final int row = board.play(column);
+                if (winDetector.isWinningMove(column, row)) {
+                    winner = player;
+                    break;
+                }
+            }
+
+            counts[winner == -1 ? 2 : winner]++;
+            counts[3] += board.getMoveCount();
+        }
+
+        return counts;
+    }
+
+}
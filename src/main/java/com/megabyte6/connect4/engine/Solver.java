@@ -0,0 +1,483 @@
+package com.megabyte6.connect4.engine;
+
+/**
+ * Finds the exact value of a position with perfect play by both sides.
+ * <p>
+ * Only boards that fit in one 64 bit word ({@code columns * (rows + 1)}
+ * bits) and don't wrap can be solved, which covers 7x6 and anything smaller.
+ * Obstacles are fine.
+ * <p>
+ * Scores count how early the game is won: a win with the side to move's
+ * last piece scores 1, a win one piece earlier scores 2 and so on, a draw
+ * is 0 and losses are negative. So for a position with {@code e} empty
+ * cells, winning straight away scores {@code (e + 1) / 2}.
+ * <p>
+ * The search is a negamax with alpha-beta pruning that only ever uses null
+ * windows, narrowing the range of possible scores until it is a single
+ * value. Moves that hand the opponent a win are never searched, forced
+ * blocks are played straight away and the rest are tried in order of how
+ * many threats they make. Results are shared through a
+ * {@link TranspositionTable}, and exact scores can be kept on disk with a
+ * {@link SolverCache}.
+ * <p>
+ * Run {@link SolverCli} to solve positions from the command line.
+ */
+public class Solver {
+
+    // Line directions as bit shifts are filled in per board: vertical,
+    // horizontal and both diagonals.
+    private static final int DIRECTIONS = 4;
+    // Exact scores are only looked up in the cache this early in the game,
+    // where the subtrees they save are worth the cost of the key.
+    private static final int CACHE_PLIES = 12;
+
+    private final TranspositionTable table;
+
+    private int columns;
+    private int rows;
+    private int winRequirement;
+    private long boardMask;
+    private long bottomMask;
+    private long obstacles;
+    private long[] columnMasks;
+    private int[] shifts;
+    // Lines of four are checked with the shifts written out, which is much
+    // faster than the general loops and covers the usual game.
+    private boolean linesOfFour;
+    private int stride;
+    private int[] moveOrder;
+    private long[] runsAfter;
+    // Move ordering scratch space for each number of empty cells, so that
+    // the search doesn't allocate.
+    private long[][] sortedMoves;
+    private int[][] sortedScores;
+    // Mixed into table keys so that positions from different boards or
+    // obstacle layouts don't share entries.
+    private long salt;
+
+    private long nodes;
+    private SolverCache cache;
+    // The cache to look positions up in during the search, if it's for this
+    // board, and what's needed to work out their keys.
+    private SolverCache searchCache;
+    private Zobrist zobrist;
+    private int cacheMinEmpty;
+    private int rootSide;
+    private int rootEmpty;
+
+    public Solver() {
+        this(new TranspositionTable(64));
+    }
+
+    public Solver(TranspositionTable table) {
+        if (table == null)
+            throw new IllegalArgumentException("The solver needs a transposition table.");
+        this.table = table;
+    }
+
+    /**
+     * @return {@code true} if positions on boards like {@code board} can be
+     *         solved.
+     */
+    public static boolean canSolve(Board board) {
+        return !board.isBoardWrappingEnabled()
+                && (long) board.getColumnCount() * board.getStride() <= Long.SIZE;
+    }
+
+    /**
+     * @return The exact score of {@code position} for the side to move.
+     */
+    public int solve(Board position) {
+        return solve(position, false);
+    }
+
+    /**
+     * @param weak If {@code true}, only find out whether the position is won
+     *             ({@code 1}), drawn ({@code 0}) or lost ({@code -1}), which
+     *             is much faster.
+     */
+    public synchronized int solve(Board position, boolean weak) {
+        nodes = 0;
+        return solvePosition(position, weak);
+    }
+
+    /**
+     * Solves every move in {@code position}.
+     *
+     * @return The score of each column for the side to move, or
+     *         {@link Integer#MIN_VALUE} for full columns.
+     */
+    public synchronized int[] analyze(Board position) {
+        nodes = 0;
+        final int[] scores = new int[position.getColumnCount()];
+        final Board child = position.copy();
+        final WinDetector winDetector = new WinDetector(child);
+        final int empty = position.getEmptyCellCount();
+
+        for (int column = 0; column < scores.length; column++) {
+            final int row = child.play(column);
+            if (row == -1)
+                scores[column] = Integer.MIN_VALUE;
+            else if (winDetector.isWinningMove(column, row))
+                scores[column] = (empty + 1) / 2;
+            else
+                scores[column] = child.isFull() ? 0 : -solvePosition(child, false);
+
+            if (row != -1)
+                child.undo();
+        }
+        return scores;
+    }
+
+    private int solvePosition(Board position, boolean weak) {
+        if (cache != null) {
+            final int cached = cache.get(position);
+            if (cached != SolverCache.NOT_FOUND)
+                return weak ? Integer.signum(cached) : cached;
+        }
+
+        setUp(position);
+        searchCache = cache != null && cache.matches(position) ? cache : null;
+        rootSide = position.getSideToMove();
+        rootEmpty = position.getEmptyCellCount();
+        final long current = position.occupancy(rootSide)[0];
+        final long mask = current | position.occupancy(rootSide ^ 1)[0] | obstacles;
+        final int score = solve(current, mask, rootEmpty, weak);
+
+        if (weak)
+            return Integer.signum(score);
+        if (cache != null)
+            cache.put(position, score);
+        return score;
+    }
+
+    /**
+     * @return The column with the best score, preferring the centre on ties,
+     *         or {@code -1} if the board is full.
+     */
+    public int bestColumn(Board position) {
+        return bestColumn(analyze(position));
+    }
+
+    /**
+     * @param scores Scores from {@link #analyze(Board)}.
+     */
+    public static int bestColumn(int[] scores) {
+        int best = -1;
+        for (int column : AlphaBetaEngine.centreFirstOrder(scores.length)) {
+            if (scores[column] != Integer.MIN_VALUE && (best == -1 || scores[column] > scores[best]))
+                best = column;
+        }
+        return best;
+    }
+
+    private void setUp(Board position) {
+        if (!canSolve(position))
+            throw new IllegalArgumentException("Only boards that fit in 64 bits and don't wrap can be solved.");
+
+        columns = position.getColumnCount();
+        rows = position.getRowCount();
+        winRequirement = position.getWinRequirement();
+        obstacles = position.occupancy(Board.OBSTACLE)[0];
+
+        final int stride = position.getStride();
+        columnMasks = new long[columns];
+        boardMask = 0;
+        bottomMask = 0;
+        for (int column = 0; column < columns; column++) {
+            columnMasks[column] = ((1L << rows) - 1) << column * stride;
+            boardMask |= columnMasks[column];
+            bottomMask |= 1L << column * stride;
+        }
+        shifts = new int[] { 1, stride, stride - 1, stride + 1 };
+        this.stride = stride;
+        // Shifts are taken modulo 64, so longer ones would wrap around.
+        linesOfFour = winRequirement == 4 && 3 * (stride + 1) < Long.SIZE;
+        runsAfter = new long[winRequirement];
+        moveOrder = AlphaBetaEngine.centreFirstOrder(columns);
+        if (sortedMoves == null || sortedMoves.length <= columns * rows || sortedMoves[0].length != columns) {
+            sortedMoves = new long[columns * rows + 1][columns];
+            sortedScores = new int[columns * rows + 1][columns];
+        }
+
+        salt = mix(mix(obstacles) ^ ((long) columns << 32 | (long) rows << 16 | winRequirement));
+        zobrist = Zobrist.of(columns, rows);
+        cacheMinEmpty = columns * rows - Long.bitCount(obstacles) - CACHE_PLIES;
+    }
+
+    private int solve(long current, long mask, int empty, boolean weak) {
+        if (empty == 0 || hasWon(current ^ mask ^ obstacles))
+            return empty == 0 ? 0 : -(empty + 2) / 2;
+        if ((winningCells(current, mask) & possibleMoves(mask)) != 0)
+            return (empty + 1) / 2;
+
+        int min = -empty / 2;
+        int max = (empty + 1) / 2;
+        if (weak) {
+            min = -1;
+            max = 1;
+        }
+
+        // Each step asks whether the score is above a guess, which is cheap
+        // because the window is empty. Guesses lean towards 0 since short
+        // wins and losses are found quickly.
+        while (min < max) {
+            int guess = min + (max - min) / 2;
+            if (guess <= 0 && min / 2 < guess)
+                guess = min / 2;
+            else if (guess >= 0 && max / 2 > guess)
+                guess = max / 2;
+
+            final int score = negamax(current, mask, empty, guess, guess + 1);
+            if (score <= guess)
+                max = score;
+            else
+                min = score;
+        }
+        return min;
+    }
+
+    /**
+     * Only called when neither side has won and the side to move can't win
+     * with its next piece.
+     */
+    private int negamax(long current, long mask, int empty, int alpha, int beta) {
+        nodes++;
+
+        final long next = nonLosingMoves(current, mask);
+        if (next == 0)
+            return -empty / 2;
+        if (empty <= 2)
+            return 0;
+
+        final int min = -(empty - 2) / 2;
+        if (alpha < min) {
+            alpha = min;
+            if (alpha >= beta)
+                return alpha;
+        }
+        final int max = (empty - 1) / 2;
+        if (beta > max) {
+            beta = max;
+            if (alpha >= beta)
+                return beta;
+        }
+
+        // A cached score is exact, so it answers any window.
+        if (searchCache != null && empty >= cacheMinEmpty) {
+            final int cached = searchCache.get(cacheKey(current, mask, empty));
+            if (cached != SolverCache.NOT_FOUND)
+                return cached;
+        }
+
+        // Salting before mixing, so that the salt can't cancel out.
+        final long key = mix((current + mask) ^ salt);
+        final long entry = table.probe(key);
+        if (entry != 0) {
+            final int score = TranspositionTable.score(entry);
+            if (TranspositionTable.bound(entry) == TranspositionTable.BOUND_UPPER) {
+                if (beta > score) {
+                    beta = score;
+                    if (alpha >= beta)
+                        return beta;
+                }
+            } else if (alpha < score) {
+                alpha = score;
+                if (alpha >= beta)
+                    return alpha;
+            }
+        }
+
+        // Order moves by the number of threats they leave, centre first on
+        // ties.
+        final long[] moves = sortedMoves[empty];
+        final int[] scores = sortedScores[empty];
+        int count = 0;
+        for (int i = columns - 1; i >= 0; i--) {
+            final long move = next & columnMasks[moveOrder[i]];
+            if (move == 0)
+                continue;
+
+            final int score = Long.bitCount(winningCells(current | move, mask | move));
+            int position = count++;
+            for (; position > 0 && scores[position - 1] > score; position--) {
+                moves[position] = moves[position - 1];
+                scores[position] = scores[position - 1];
+            }
+            moves[position] = move;
+            scores[position] = score;
+        }
+
+        final long opponent = current ^ mask ^ obstacles;
+        while (count > 0) {
+            final long move = moves[--count];
+            final int score = -negamax(opponent, mask | move, empty - 1, -beta, -alpha);
+            if (score >= beta) {
+                table.store(key, score, empty, TranspositionTable.BOUND_LOWER, -1);
+                return score;
+            }
+            if (score > alpha)
+                alpha = score;
+        }
+
+        table.store(key, alpha, empty, TranspositionTable.BOUND_UPPER, -1);
+        return alpha;
+    }
+
+    /**
+     * @return The moves that don't let the opponent win straight away. If the
+     *         opponent has a win to block, that's the only move returned, and
+     *         if it has two there are none.
+     */
+    private long nonLosingMoves(long current, long mask) {
+        long possible = possibleMoves(mask);
+        final long opponentWins = winningCells(current ^ mask ^ obstacles, mask);
+        final long forced = possible & opponentWins;
+        if (forced != 0) {
+            if ((forced & (forced - 1)) != 0)
+                return 0;
+            possible = forced;
+        }
+        // Don't play directly under one of the opponent's winning cells.
+        return possible & ~(opponentWins >>> 1);
+    }
+
+    private long possibleMoves(long mask) {
+        return (mask + bottomMask) & boardMask;
+    }
+
+    /**
+     * @return The empty cells that would complete a line for the player with
+     *         {@code pieces}.
+     */
+    private long winningCells(long pieces, long mask) {
+        if (linesOfFour)
+            return winningCellsOfFour(pieces) & (boardMask ^ mask);
+
+        final int length = winRequirement - 1;
+        long cells = 0;
+        for (int direction = 0; direction < DIRECTIONS; direction++) {
+            final int shift = shifts[direction];
+
+            // runsAfter[i] has the cells followed by i of the player's pieces.
+            long run = -1L;
+            runsAfter[0] = run;
+            for (int i = 1; i <= length; i++) {
+                run &= shift(pieces, i * shift);
+                runsAfter[i] = run;
+            }
+
+            // The empty cell can be anywhere in the line, with the rest of
+            // the pieces split between before and after it.
+            cells |= runsAfter[length];
+            long runBefore = -1L;
+            for (int before = 1; before <= length; before++) {
+                runBefore &= shift(pieces, -before * shift);
+                cells |= runBefore & runsAfter[length - before];
+            }
+        }
+        return cells & (boardMask ^ mask);
+    }
+
+    /**
+     * {@link #winningCells} for lines of four, including filled cells.
+     */
+    private long winningCellsOfFour(long pieces) {
+        // Vertical lines can only be finished on top.
+        long cells = (pieces << 1) & (pieces << 2) & (pieces << 3);
+        cells |= lineCellsOfFour(pieces, stride);
+        cells |= lineCellsOfFour(pieces, stride - 1);
+        cells |= lineCellsOfFour(pieces, stride + 1);
+        return cells;
+    }
+
+    // Cells with three pieces around them along one direction, in any of
+    // the four places a cell can be in a line.
+    private static long lineCellsOfFour(long pieces, int shift) {
+        long pair = (pieces << shift) & (pieces << 2 * shift);
+        long cells = pair & (pieces << 3 * shift);
+        cells |= pair & (pieces >>> shift);
+        pair = (pieces >>> shift) & (pieces >>> 2 * shift);
+        cells |= pair & (pieces << shift);
+        cells |= pair & (pieces >>> 3 * shift);
+        return cells;
+    }
+
+    private boolean hasWon(long pieces) {
+        if (linesOfFour) {
+            for (int shift : shifts) {
+                final long pairs = pieces & (pieces >>> shift);
+                if ((pairs & (pairs >>> 2 * shift)) != 0)
+                    return true;
+            }
+            return false;
+        }
+
+        for (int direction = 0; direction < DIRECTIONS; direction++) {
+            long line = pieces;
+            for (int i = 1; i < winRequirement && line != 0; i++)
+                line &= shift(pieces, i * shifts[direction]);
+            if (line != 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code bits} moved so that bit {@code n} of the result is bit
+     *         {@code n + distance} of {@code bits}.
+     */
+    private static long shift(long bits, int distance) {
+        if (distance >= Long.SIZE || distance <= -Long.SIZE)
+            return 0;
+        return distance >= 0 ? bits >>> distance : bits << -distance;
+    }
+
+    /**
+     * @return The {@link Board#canonicalKey() canonical key} of the position
+     *         with {@code empty} empty cells, which {@link SolverCache} is
+     *         keyed by.
+     */
+    private long cacheKey(long current, long mask, int empty) {
+        final int side = rootSide ^ ((rootEmpty - empty) & 1);
+        long key = side == Board.PLAYER_2 ? zobrist.sideKey() : 0;
+        long mirroredKey = key;
+        for (long cells = mask; cells != 0; cells &= cells - 1) {
+            final long cell = cells & -cells;
+            final int owner = (obstacles & cell) != 0 ? Board.OBSTACLE
+                    : (current & cell) != 0 ? side
+                    : side ^ 1;
+            final int bit = Long.numberOfTrailingZeros(cell);
+            key ^= zobrist.cellKey(owner, bit / stride, bit % stride);
+            mirroredKey ^= zobrist.mirroredCellKey(owner, bit / stride, bit % stride);
+        }
+        return Math.min(key, mirroredKey);
+    }
+
+    // Spreads position keys over the table, which indexes by the low bits.
+    private static long mix(long key) {
+        key = (key ^ (key >>> 33)) * 0xFF51AFD7ED558CCDL;
+        key = (key ^ (key >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return key ^ (key >>> 33);
+    }
+
+    /**
+     * Looks exact scores up in {@code cache} before solving and saves them
+     * to it afterwards. Positions in the first few plies of the game are
+     * also looked up during the search, so a cache filled by solving them
+     * makes solving earlier positions much faster. Pass {@code null} to stop
+     * using a cache.
+     */
+    public synchronized void setCache(SolverCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * @return Positions searched by the last call to {@link #solve} or
+     *         {@link #analyze}.
+     */
+    public long getNodeCount() {
+        return nodes;
+    }
+
+}
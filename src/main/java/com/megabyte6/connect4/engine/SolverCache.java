@@ -0,0 +1,145 @@
+package com.megabyte6.connect4.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exact {@link Solver} scores saved on disk so that a position only ever
+ * has to be solved once. Entries are keyed by the position's
+ * {@link Board#canonicalKey() canonical key}, which covers obstacles, the
+ * side to move and mirror images.
+ * <p>
+ * The file is a header followed by one record per solved position, added
+ * to the end as positions are solved. Everything is read into memory when
+ * the cache is opened.
+ */
+public class SolverCache {
+
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+
+    // "C4SC"
+    private static final int MAGIC = 0x43345343;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 20;
+    private static final int RECORD_BYTES = 12;
+
+    private final Path path;
+    private final int columns;
+    private final int rows;
+    private final int winRequirement;
+    private final Map<Long, Integer> scores = new ConcurrentHashMap<>();
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private boolean writable = true;
+
+    private SolverCache(Path path, int columns, int rows, int winRequirement) {
+        this.path = path;
+        this.columns = columns;
+        this.rows = rows;
+        this.winRequirement = winRequirement;
+    }
+
+    /**
+     * Opens the cache at {@code path} for boards like {@code geometry},
+     * creating it if it doesn't exist yet.
+     */
+    public static SolverCache open(Path path, Board geometry) throws IOException {
+        final SolverCache cache = new SolverCache(path, geometry.getColumnCount(), geometry.getRowCount(),
+                geometry.getWinRequirement());
+
+        if (!Files.exists(path)) {
+            if (path.getParent() != null)
+                Files.createDirectories(path.getParent());
+            final ByteBuffer header = cache.header();
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                while (header.hasRemaining())
+                    channel.write(header);
+            }
+            return cache;
+        }
+
+        final ByteBuffer contents = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        if (contents.remaining() < HEADER_BYTES || !contents.slice(0, HEADER_BYTES).equals(cache.header()))
+            throw new IOException("Solver cache was made for a different board.");
+
+        // A record cut short by a crash is ignored.
+        for (int offset = HEADER_BYTES; offset + RECORD_BYTES <= contents.limit(); offset += RECORD_BYTES)
+            cache.scores.put(contents.getLong(offset), contents.getInt(offset + 8));
+        return cache;
+    }
+
+    private ByteBuffer header() {
+        return ByteBuffer.allocate(HEADER_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(columns)
+                .putInt(rows)
+                .putInt(winRequirement)
+                .flip();
+    }
+
+    /**
+     * @return The saved score for {@code position} or {@link #NOT_FOUND}.
+     */
+    public int get(Board position) {
+        if (!matches(position))
+            return NOT_FOUND;
+        return scores.getOrDefault(position.canonicalKey(), NOT_FOUND);
+    }
+
+    /**
+     * {@link #get(Board)} by canonical key, for positions already known to
+     * be on a board like this cache's.
+     */
+    int get(long canonicalKey) {
+        return scores.getOrDefault(canonicalKey, NOT_FOUND);
+    }
+
+    /**
+     * Saves {@code score} for {@code position}. If the file can't be written
+     * to, the score is only kept in memory.
+     */
+    public synchronized void put(Board position, int score) {
+        if (!matches(position) || scores.putIfAbsent(position.canonicalKey(), score) != null || !writable)
+            return;
+
+        record.clear();
+        record.putLong(position.canonicalKey()).putInt(score).flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (record.hasRemaining())
+                channel.write(record);
+        } catch (IOException e) {
+            System.err.println("WARNING: Solver cache failed to save.");
+            e.printStackTrace();
+            writable = false;
+        }
+    }
+
+    boolean matches(Board position) {
+        return position.getColumnCount() == columns
+                && position.getRowCount() == rows
+                && position.getWinRequirement() == winRequirement
+                && !position.isBoardWrappingEnabled();
+    }
+
+    public int size() {
+        return scores.size();
+    }
+
+    /**
+     * @return The usual file name for a cache for boards like
+     *         {@code board}, such as {@code 7x6-4.cache}.
+     */
+    public static String fileName(int columns, int rows, int winRequirement) {
+        return columns + "x" + rows + "-" + winRequirement + ".cache";
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.megabyte6.connect4.engine;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Solves a position from the command line and prints the score of every
+ * move.
+ * <p>
+ * Arguments:
+ * {@code <columns> <rows> <winRequirement> [moves] [--weak] [--cache <file>] [--table <MB>]}
+ * <p>
+ * Moves are the columns played so far, counting from 1, either as digits
+ * ({@code 4453}) or separated by commas ({@code 4,4,5,10}).
+ */
+public class SolverCli {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: <columns> <rows> <winRequirement> [moves] [--weak] [--cache <file>] [--table <MB>]");
+            System.exit(1);
+        }
+
+        final Board position = new Board(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                Integer.parseInt(args[2]), false);
+        String moves = "";
+        boolean weak = false;
+        Path cachePath = null;
+        long tableSize = 256;
+        for (int i = 3; i < args.length; i++) {
+            switch (args[i]) {
+                case "--weak" -> weak = true;
+                case "--cache" -> cachePath = Path.of(args[++i]);
+                case "--table" -> tableSize = Long.parseLong(args[++i]);
+                default -> moves = args[i];
+            }
+        }
+
+        if (!Solver.canSolve(position)) {
+            System.err.println("ERROR: Boards with more than 64 cells including one spare row can't be solved.");
+            System.exit(1);
+        }
+        play(position, moves);
+
+        final Solver solver = new Solver(new TranspositionTable(tableSize));
+        if (cachePath != null)
+            solver.setCache(SolverCache.open(cachePath, position));
+
+        System.out.print(position);
+        final long startTime = System.nanoTime();
+        if (weak) {
+            final int score = solver.solve(position, true);
+            System.out.println(score > 0 ? "Win" : score < 0 ? "Loss" : "Draw");
+        } else {
+            final int[] scores = solver.analyze(position);
+            int best = Integer.MIN_VALUE;
+            for (int column = 0; column < scores.length; column++) {
+                best = Math.max(best, scores[column]);
+                System.out.printf("column %2d: %s%n", column + 1,
+                        scores[column] == Integer.MIN_VALUE ? "full" : describe(scores[column], position));
+            }
+            System.out.println("Position: " + describe(best, position));
+        }
+        System.out.printf("%d nodes in %.3f s%n", solver.getNodeCount(), (System.nanoTime() - startTime) / 1e9);
+    }
+
+    private static void play(Board position, String moves) {
+        final WinDetector winDetector = new WinDetector(position);
+        final String[] columns = moves.contains(",") ? moves.split(",") : moves.split("");
+        for (String move : columns) {
+            if (move.isBlank())
+                continue;
+
+            final int column = Integer.parseInt(move.trim()) - 1;
+            final int row = position.play(column);
+            if (row == -1)
+                throw new IllegalArgumentException("Column " + (column + 1) + " can't be played.");
+            if (winDetector.isWinningMove(column, row))
+                throw new IllegalArgumentException("The game is already over after column " + (column + 1) + ".");
+        }
+    }
+
+    private static String describe(int score, Board position) {
+        final int empty = position.getEmptyCellCount();
+        if (score > 0)
+            return score + " (wins with piece " + ((empty + 3) / 2 - score) + ")";
+        if (score < 0)
+            return score + " (loses to opponent's piece " + ((empty + 2) / 2 + score) + ")";
+        return "0 (draw)";
+    }
+
+}
@@ -0,0 +1,223 @@
+package com.megabyte6.connect4.engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shared, lock free hash table of search results. The table lives off heap
+ * in direct {@link ByteBuffer}s, so a large table costs the garbage
+ * collector nothing. The JVM has to be allowed enough direct memory for it
+ * ({@code -XX:MaxDirectMemorySize}).
+ * <p>
+ * Every entry is two longs: the key XORed with the data, and the data.
+ * Entries are read and written without locks, so two threads storing to the
+ * same slot at once can leave a torn entry behind. A torn entry no longer
+ * XORs back to its key and is treated as a miss.
+ * <p>
+ * Each bucket holds a depth-preferred slot, which is only replaced by deeper
+ * (or equally deep) searches, and an always-replace slot that takes
+ * everything else.
+ */
+public class TranspositionTable {
+
+    public static final int BOUND_EXACT = 1;
+    public static final int BOUND_LOWER = 2;
+    public static final int BOUND_UPPER = 3;
+
+    public static final long MIN_SIZE_MB = 1;
+    public static final long MAX_SIZE_MB = 8192;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKET_BYTES = ENTRY_BYTES * 2;
+    // Largest buffer size used, so that offsets always fit in an int.
+    private static final int SEGMENT_SHIFT = 30;
+
+    // Data layout: score (32 bits) | depth (12 bits) | bound (2 bits) | move (18 bits).
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 44;
+    private static final int MOVE_SHIFT = 46;
+    private static final int MAX_DEPTH = (1 << 12) - 1;
+    private static final int MOVE_MASK = (1 << 18) - 1;
+
+    // Plain ByteBuffer reads and writes aren't guaranteed to be atomic, even
+    // for aligned longs. Opaque access through a view var handle is.
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(
+            long[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer[] segments;
+    private final long bucketCount;
+    private final int bucketsPerSegmentShift;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+
+    /**
+     * @param sizeInMegabytes Size of the table. It is rounded down to a power
+     *                        of two.
+     */
+    public TranspositionTable(long sizeInMegabytes) {
+        if (sizeInMegabytes < MIN_SIZE_MB || sizeInMegabytes > MAX_SIZE_MB)
+            throw new IllegalArgumentException("Transposition table size must be between "
+                    + MIN_SIZE_MB + " and " + MAX_SIZE_MB + " MB.");
+
+        final long bytes = Long.highestOneBit(sizeInMegabytes) << 20;
+        bucketCount = bytes / BUCKET_BYTES;
+
+        final long segmentBytes = Math.min(bytes, 1L << SEGMENT_SHIFT);
+        bucketsPerSegmentShift = Long.numberOfTrailingZeros(segmentBytes / BUCKET_BYTES);
+
+        segments = new ByteBuffer[(int) (bytes / segmentBytes)];
+        for (int i = 0; i < segments.length; i++)
+            segments[i] = ByteBuffer.allocateDirect((int) segmentBytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * @return The data stored for {@code key} or {@code 0} if there is none.
+     *         Use the static accessors to unpack it.
+     */
+    public long probe(long key) {
+        probes.increment();
+
+        final long bucket = key & (bucketCount - 1);
+        final ByteBuffer segment = segment(bucket);
+        final int offset = offset(bucket);
+
+        for (int slot = 0; slot < 2; slot++) {
+            final int entry = offset + slot * ENTRY_BYTES;
+            final long data = (long) LONGS.getOpaque(segment, entry + 8);
+            final long check = (long) LONGS.getOpaque(segment, entry);
+            if (data != 0 && (check ^ data) == key) {
+                hits.increment();
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    public void store(long key, int score, int depth, int bound, int move) {
+        stores.increment();
+
+        final long bucket = key & (bucketCount - 1);
+        final ByteBuffer segment = segment(bucket);
+        final int offset = offset(bucket);
+
+        final long data = pack(score, depth, bound, move);
+
+        // The depth-preferred slot takes the entry if it holds the same
+        // position or a shallower search. Otherwise use the other slot.
+        final long preferredData = (long) LONGS.getOpaque(segment, offset + 8);
+        final long preferredKey = (long) LONGS.getOpaque(segment, offset) ^ preferredData;
+        final int entry = preferredData == 0 || preferredKey == key || depth(preferredData) <= depth
+                ? offset
+                : offset + ENTRY_BYTES;
+
+        final long oldData = (long) LONGS.getOpaque(segment, entry + 8);
+        if (oldData != 0 && ((long) LONGS.getOpaque(segment, entry) ^ oldData) != key)
+            collisions.increment();
+
+        LONGS.setOpaque(segment, entry, key ^ data);
+        LONGS.setOpaque(segment, entry + 8, data);
+    }
+
+    public void clear() {
+        for (ByteBuffer segment : segments) {
+            for (int i = 0; i < segment.capacity(); i += Long.BYTES)
+                LONGS.setOpaque(segment, i, 0L);
+        }
+        probes.reset();
+        hits.reset();
+        stores.reset();
+        collisions.reset();
+    }
+
+    private ByteBuffer segment(long bucket) {
+        return segments[(int) (bucket >>> bucketsPerSegmentShift)];
+    }
+
+    private int offset(long bucket) {
+        return (int) (bucket & ((1L << bucketsPerSegmentShift) - 1)) * BUCKET_BYTES;
+    }
+
+    private static long pack(int score, int depth, int bound, int move) {
+        return (score & 0xFFFFFFFFL)
+                | (long) Math.min(Math.max(depth, 0), MAX_DEPTH) << DEPTH_SHIFT
+                | (long) bound << BOUND_SHIFT
+                | (long) (move & MOVE_MASK) << MOVE_SHIFT;
+    }
+
+    public static int score(long data) {
+        return (int) data;
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & MAX_DEPTH;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 3;
+    }
+
+    /**
+     * @return The best move stored with the entry or {@code -1} if there
+     *         wasn't one.
+     */
+    public static int move(long data) {
+        final int move = (int) (data >>> MOVE_SHIFT) & MOVE_MASK;
+        return move == MOVE_MASK ? -1 : move;
+    }
+
+    public long getSizeInBytes() {
+        return bucketCount * BUCKET_BYTES;
+    }
+
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getStores() {
+        return stores.sum();
+    }
+
+    /**
+     * @return Number of stores that overwrote an entry for a different
+     *         position.
+     */
+    public long getCollisions() {
+        return collisions.sum();
+    }
+
+    /**
+     * @return Estimated fraction of used slots, sampled from the first
+     *         thousand buckets.
+     */
+    public double getFillRatio() {
+        final long sampled = Math.min(bucketCount, 1000);
+        long used = 0;
+        for (long bucket = 0; bucket < sampled; bucket++) {
+            final ByteBuffer segment = segment(bucket);
+            final int offset = offset(bucket);
+            for (int slot = 0; slot < 2; slot++) {
+                if ((long) LONGS.getOpaque(segment, offset + slot * ENTRY_BYTES + 8) != 0)
+                    used++;
+            }
+        }
+        return (double) used / (sampled * 2);
+    }
+
+    @Override
+    public String toString() {
+        return "TranspositionTable(size=" + (getSizeInBytes() >> 20) + " MB, probes=" + getProbes()
+                + ", hits=" + getHits() + ", stores=" + getStores()
+                + ", collisions=" + getCollisions() + ")";
+    }
+
+}
@@ -0,0 +1,198 @@
+package com.megabyte6.connect4.engine;
+
+import com.megabyte6.connect4.util.Position;
+
+/**
+ * Checks whether the piece at a given cell completes a line of
+ * {@code winRequirement} pieces. Only the lines through that cell are looked
+ * at, so the check is incremental and nothing is allocated while checking.
+ * <p>
+ * Boards that fit in a single {@code long} and don't wrap use shift and mask
+ * tests on the whole bitboard. Every other board walks outwards from the
+ * cell along the four directions, wrapping columns when board wrapping is
+ * enabled.
+ */
+public class WinDetector {
+
+    // Column step and height step of the four line directions: vertical,
+    // horizontal, ascending diagonal, descending diagonal.
+    private static final int[] COLUMN_STEPS = { 0, 1, 1, 1 };
+    private static final int[] HEIGHT_STEPS = { 1, 0, 1, -1 };
+
+    private final Board board;
+    private final int winRequirement;
+    private final boolean boardWrapping;
+    private final boolean singleWord;
+    // Bit shift for each direction when the board fits in one word.
+    private final int[] shifts;
+
+    private final int[] winningColumns;
+    private final int[] winningRows;
+    private int winningCellCount = 0;
+
+    public WinDetector(Board board) {
+        this.board = board;
+        winRequirement = board.getWinRequirement();
+        boardWrapping = board.isBoardWrappingEnabled();
+        singleWord = !boardWrapping
+                && (long) board.getColumnCount() * board.getStride() <= Long.SIZE;
+
+        final int stride = board.getStride();
+        shifts = new int[] { 1, stride, stride + 1, stride - 1 };
+
+        winningColumns = new int[winRequirement];
+        winningRows = new int[winRequirement];
+    }
+
+    /**
+     * @return {@code true} if the piece at the given cell is part of a line
+     *         long enough to win. Empty cells and obstacles never win.
+     */
+    public boolean isWinningMove(int column, int row) {
+        final int owner = board.getOwner(column, row);
+        if (owner != Board.PLAYER_1 && owner != Board.PLAYER_2)
+            return false;
+
+        if (singleWord)
+            return hasLine(board.occupancy(owner)[0], board.bitIndex(column, board.toHeight(row)));
+
+        final int height = board.toHeight(row);
+        for (int direction = 0; direction < COLUMN_STEPS.length; direction++) {
+            if (countLine(owner, column, height, direction, false) >= winRequirement)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Same as {@link #isWinningMove(int, int)} but also records the cells of
+     * the winning line. They can be read back with
+     * {@link #getWinningCellCount()}, {@link #getWinningColumn(int)} and
+     * {@link #getWinningRow(int)} until the next call.
+     */
+    public boolean findWin(int column, int row) {
+        winningCellCount = 0;
+
+        final int owner = board.getOwner(column, row);
+        if (owner != Board.PLAYER_1 && owner != Board.PLAYER_2)
+            return false;
+
+        final int height = board.toHeight(row);
+        for (int direction = 0; direction < COLUMN_STEPS.length; direction++) {
+            if (countLine(owner, column, height, direction, true) >= winRequirement)
+                return true;
+        }
+
+        winningCellCount = 0;
+        return false;
+    }
+
+    /**
+     * Shift and mask test for a run of {@code winRequirement} bits through
+     * {@code bit} in any direction. The empty sentinel bit on top of each
+     * column stops runs from leaking into the next column.
+     */
+    private boolean hasLine(long bitboard, int bit) {
+        for (int shift : shifts) {
+            long runs = bitboard;
+            int covered = 1;
+            while (covered < winRequirement && runs != 0) {
+                final int step = Math.min(covered, winRequirement - covered);
+                runs &= runs >>> (shift * step);
+                covered += step;
+            }
+
+            // Each bit left marks where a run starts, so only runs starting
+            // close enough before the cell pass through it.
+            long starts = 0;
+            for (int i = 0, start = bit; i < winRequirement && start >= 0; i++, start -= shift)
+                starts |= 1L << start;
+            if ((runs & starts) != 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Counts the owner's pieces in a line through the given cell, stopping
+     * once {@code winRequirement} pieces have been found.
+     */
+    private int countLine(int owner, int column, int height, int direction, boolean record) {
+        final int columnStep = COLUMN_STEPS[direction];
+        final int heightStep = HEIGHT_STEPS[direction];
+
+        if (record) {
+            winningCellCount = 0;
+            recordCell(column, height);
+        }
+
+        int count = 1;
+        for (int sign = 1; sign >= -1 && count < winRequirement; sign -= 2) {
+            int c = column;
+            int h = height;
+            while (count < winRequirement) {
+                c += columnStep * sign;
+                h += heightStep * sign;
+
+                if (h < 0 || h >= board.getRowCount())
+                    break;
+                if (c < 0 || c >= board.getColumnCount()) {
+                    if (!boardWrapping)
+                        break;
+                    c = Math.floorMod(c, board.getColumnCount());
+                }
+                if (!isSet(owner, c, h))
+                    break;
+
+                if (record)
+                    recordCell(c, h);
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private boolean isSet(int owner, int column, int height) {
+        final int bit = board.bitIndex(column, height);
+        return (board.occupancy(owner)[bit >>> 6] & 1L << bit) != 0;
+    }
+
+    private void recordCell(int column, int height) {
+        winningColumns[winningCellCount] = column;
+        winningRows[winningCellCount] = board.toRow(height);
+        winningCellCount++;
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public int getWinningCellCount() {
+        return winningCellCount;
+    }
+
+    public int getWinningColumn(int index) {
+        return winningColumns[index];
+    }
+
+    public int getWinningRow(int index) {
+        return winningRows[index];
+    }
+
+    /**
+     * @return The cells found by the last call to
+     *         {@link #findWin(int, int)} or {@code null} if it didn't find a
+     *         win.
+     */
+    public Position[] getWinningCells() {
+        if (winningCellCount == 0)
+            return null;
+
+        final Position[] cells = new Position[winningCellCount];
+        for (int i = 0; i < winningCellCount; i++)
+            cells[i] = new Position(winningColumns[i], winningRows[i]);
+        return cells;
+    }
+
+}
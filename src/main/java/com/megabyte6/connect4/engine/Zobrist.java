@@ -0,0 +1,59 @@
+package com.megabyte6.connect4.engine;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Random keys for Zobrist hashing. A position's key is the XOR of the keys
+ * of every filled cell (one key per cell per owner, obstacles included) and
+ * the side to move key when it's player 2's turn.
+ * <p>
+ * Keys come from a fixed seed, so the same board size always gets the same
+ * keys. That keeps keys stored on disk valid between runs.
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x436F6E6E65637434L;
+    private static final ConcurrentMap<Long, Zobrist> cache = new ConcurrentHashMap<>();
+
+    private final int columns;
+    private final int rows;
+    // [owner][column * rows + height]
+    private final long[][] cellKeys;
+    private final long sideKey;
+
+    private Zobrist(int columns, int rows) {
+        this.columns = columns;
+        this.rows = rows;
+
+        final SplittableRandom random = new SplittableRandom(SEED ^ ((long) columns << 32 | rows));
+        cellKeys = new long[3][columns * rows];
+        for (long[] keys : cellKeys) {
+            for (int i = 0; i < keys.length; i++)
+                keys[i] = random.nextLong();
+        }
+        sideKey = random.nextLong();
+    }
+
+    public static Zobrist of(int columns, int rows) {
+        return cache.computeIfAbsent((long) columns << 32 | rows, key -> new Zobrist(columns, rows));
+    }
+
+    public long cellKey(int owner, int column, int height) {
+        return cellKeys[owner][column * rows + height];
+    }
+
+    /**
+     * @return The key the cell would have if the board was mirrored left to
+     *         right.
+     */
+    public long mirroredCellKey(int owner, int column, int height) {
+        return cellKeys[owner][(columns - 1 - column) * rows + height];
+    }
+
+    public long sideKey() {
+        return sideKey;
+    }
+
+}
@@ -1,22 +1,28 @@
 package com.megabyte6.connect4.model;
 
-import static com.megabyte6.connect4.util.Range.range;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 import com.megabyte6.connect4.App;
+import com.megabyte6.connect4.engine.Board;
+import com.megabyte6.connect4.engine.MoveLog;
+import com.megabyte6.connect4.engine.WinDetector;
 import com.megabyte6.connect4.util.tuple.Triplet;
 import com.megabyte6.connect4.util.tuple.Tuple;
-import lombok.EqualsAndHashCode;
+import javafx.scene.paint.Paint;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
 import lombok.ToString;
 
 @ToString
-@EqualsAndHashCode
 public class Game {
 
+    @FunctionalInterface
+    public interface PieceListener {
+        void pieceChanged(int column, int row, Paint fill);
+    }
+
     @Getter
     private boolean paused = false;
     @Getter
@@ -28,12 +34,19 @@ public class Game {
     private final Player player1;
     private final Player player2;
 
+    // The rules state. Everything else in this class is a view over it.
     @Getter
-    private Player currentPlayer;
-
-    // [column][row]
+    private final Board board;
     @Getter
-    private final GamePiece[][] gameBoard;
+    private final WinDetector winDetector;
+    // Whose turn it was when the history pointer left the latest move.
+    private int liveSideToMove;
+
+    // Draws the pieces. Game only says which ones changed.
+    @Setter
+    @NonNull
+    private PieceListener onPieceChanged = (column, row, fill) -> {
+    };
 
     @Getter
     private int selectedColumn;
@@ -41,49 +54,119 @@ public class Game {
     @Getter
     @Setter
     private Timer timer;
+    // Each player's clock, when time carries over between turns.
+    private final Timer[] clocks = new Timer[2];
 
-    // Player, Column, Row
-    private final LinkedList<Triplet<Player, Integer, Integer>> moveHistory = new LinkedList<>();
+    private final MoveLog moveHistory = new MoveLog();
     private int historyPointer = -1;
 
-    public Game(Player player1, Player player2, int columns, int rows) {
+    // Seeking rebuilds the board from the nearest checkpoint instead of
+    // replaying the whole game. Checkpoint i is the board after
+    // i * CHECKPOINT_INTERVAL moves.
+    private static final int CHECKPOINT_INTERVAL = 32;
+    private final List<Board> checkpoints = new ArrayList<>();
+
+    public Game(Player player1, Player player2, int columns, int rows, int winRequirement,
+            boolean boardWrapping) {
         this.player1 = player1;
         this.player2 = player2;
-        currentPlayer = this.player1;
 
-        gameBoard = new GamePiece[columns][rows];
+        board = new Board(columns, rows, winRequirement, boardWrapping);
+        winDetector = new WinDetector(board);
         selectedColumn = columns / 2;
     }
 
+    public Player getCurrentPlayer() {
+        return getPlayer(board.getSideToMove());
+    }
+
     public void swapTurns() {
-        currentPlayer = currentPlayer == player1
-                ? player2
-                : player1;
+        board.swapSides();
     }
 
-    public int findNextFreeRow(int columnIndex) {
-        final GamePiece[] column = getGameBoardColumn(columnIndex);
+    /**
+     * Drops a piece for the current player and hands the turn to the other
+     * player.
+     *
+     * @return The row the piece landed in or {@code -1} if the column is
+     *         full.
+     */
+    public int playMove(int column) {
+        if (!board.canPlay(column))
+            return -1;
 
-        for (int i : range(column.length - 1, -1)) {
-            if (column[i].getOwner().equals(Player.NONE.get()))
-                return i;
-        }
+        if (board.getMoveCount() % CHECKPOINT_INTERVAL == 0)
+            saveCheckpoint();
+
+        final Player player = getCurrentPlayer();
+        final int row = board.play(column);
+        if (row == -1)
+            return -1;
+
+        addMoveToHistory(player, column, row);
+        return row;
+    }
 
-        return -1;
+    /**
+     * @return The row the obstacle landed in or {@code -1} if the column is
+     *         full.
+     */
+    public int placeObstacle(int column) {
+        return board.placeObstacle(column);
+    }
+
+    public int findNextFreeRow(int columnIndex) {
+        return board.findNextFreeRow(columnIndex);
     }
 
     public List<Integer> findFreeColumns() {
-        List<Integer> freeColumns = new ArrayList<>();
+        List<Integer> freeColumns = new ArrayList<>(board.getPlayableColumnCount());
 
-        for (int i = 0; i < getColumnCount(); i++) {
-            if (findNextFreeRow(i) != -1) {
-                freeColumns.add(i);
-            }
+        for (int i = board.nextPlayableColumn(0); i != -1; i = board.nextPlayableColumn(i + 1)) {
+            freeColumns.add(i);
         }
 
         return freeColumns;
     }
 
+    public int getFreeColumnCount() {
+        return board.getPlayableColumnCount();
+    }
+
+    /**
+     * @return A random column that isn't full or {@code -1} if the board is
+     *         full.
+     */
+    public int findRandomFreeColumn() {
+        if (board.isFull())
+            return -1;
+        return board.getPlayableColumn(ThreadLocalRandom.current().nextInt(board.getPlayableColumnCount()));
+    }
+
+    /**
+     * @return The Zobrist key of the current position. Use this instead of
+     *         comparing games.
+     */
+    public long getPositionKey() {
+        return board.key();
+    }
+
+    public boolean isBoardFull() {
+        return board.isFull();
+    }
+
+    public Player getPlayer(int playerIndex) {
+        return playerIndex == Board.PLAYER_1
+                ? player1
+                : player2;
+    }
+
+    public int getPlayerIndex(Player player) {
+        return player == player1
+                ? Board.PLAYER_1
+                : Board.PLAYER_2;
+    }
+
     public boolean isOutOfBounds(int columnIndex, int rowIndex) {
         return columnIsOutOfBounds(columnIndex) || rowIsOutOfBounds(rowIndex);
     }
@@ -114,46 +197,54 @@ public class Game {
     }
 
     public void setSelectedColumn(int index) {
-        if (isPaused() || index < 0 || index >= gameBoard.length)
+        if (isPaused() || index < 0 || index >= getColumnCount())
             return;
         selectedColumn = index;
     }
 
-    public GamePiece[] getGameBoardColumn(int columnNumber) {
-        return gameBoard[columnNumber];
-    }
-
     public int getColumnCount() {
-        return gameBoard.length;
+        return board.getColumnCount();
     }
 
     public int getRowCount() {
-        return gameBoard[0].length;
-    }
-
-    public GamePiece getGamePiece(int columnIndex, int rowIndex) {
-        return gameBoard[columnIndex][rowIndex];
-    }
-
-    public void setGamePiece(GamePiece gamePiece, int columnIndex, int rowIndex) {
-        gameBoard[columnIndex][rowIndex] = gamePiece;
+        return board.getRowCount();
     }
 
     public void resetTimer(@NonNull Runnable onUpdate, @NonNull Runnable onTimeout) {
         if (!App.getSettings().isTimerEnabled())
             return;
 
+        final Settings settings = App.getSettings();
+        if (!settings.isTimerCarriedOver()) {
+            if (timer != null)
+                timer.stop();
+
+            timer = new Timer(settings.getTimerLength(), settings.getTimerRefreshInterval());
+            timer.setOnUpdate(onUpdate);
+            timer.setOnTimeout(onTimeout);
+            timer.start();
+            return;
+        }
+
         if (timer != null)
-            timer.stop();
+            timer.endTurn();
 
-        timer = new Timer(App.getSettings().getTimerLength());
+        final int player = getPlayerIndex(getCurrentPlayer());
+        if (clocks[player] == null) {
+            clocks[player] = new Timer(settings.getTimerLength(), settings.getTimerRefreshInterval());
+            clocks[player].setIncrement(settings.getTimerIncrement());
+            clocks[player].setDelay(settings.getTimerDelay());
+        }
+        timer = clocks[player];
         timer.setOnUpdate(onUpdate);
         timer.setOnTimeout(onTimeout);
-        timer.start();
+        timer.startTurn();
     }
 
-    public void addMoveToHistory(Player player, int column, int row) {
-        moveHistory.add(Tuple.of(player, column, row));
+    private void addMoveToHistory(Player player, int column, int row) {
+        // Anything after the history pointer is no longer part of the game.
+        moveHistory.truncate(historyPointer + 1);
+        moveHistory.add(getPlayerIndex(player), column, row);
         historyPointer = getMoveCount() - 1;
     }
 
@@ -161,19 +252,19 @@ public class Game {
         return moveHistory.size();
     }
 
+    private void saveCheckpoint() {
+        final int index = board.getMoveCount() / CHECKPOINT_INTERVAL;
+        while (checkpoints.size() > index)
+            checkpoints.remove(checkpoints.size() - 1);
+        checkpoints.add(board.copy());
+    }
+
     public void moveHistoryPointerBack() {
         // Check if the user is already at the beginning.
         if (historyPointer == -1)
             return;
 
-        setPaused(true);
-
-        var selectedAction = moveHistory.get(historyPointer);
-        GamePiece selectedGamePiece = getGamePiece(selectedAction.b(), selectedAction.c());
-        selectedGamePiece.setOwner(Player.NONE.get());
-        selectedGamePiece.setFill(App.BACKGROUND_COLOR);
-
-        historyPointer--;
+        seek(historyPointer);
     }
 
     public void moveHistoryPointerForward() {
@@ -181,27 +272,92 @@ public class Game {
         if (historyPointerIsAtLatestMove())
             return;
 
-        historyPointer++;
+        seek(historyPointer + 2);
+    }
+
+    /**
+     * Shows the game as it was after {@code ply} moves. The board is rebuilt
+     * from the nearest checkpoint and only the pieces that differ between
+     * the old and new position are repainted.
+     */
+    public void seek(int ply) {
+        ply = Math.max(0, Math.min(ply, getMoveCount()));
+        final int currentPly = historyPointer + 1;
+        if (ply == currentPly)
+            return;
+
+        if (historyPointerIsAtLatestMove())
+            liveSideToMove = board.getSideToMove();
+
+        if (Math.abs(ply - currentPly) <= CHECKPOINT_INTERVAL) {
+            for (int i = currentPly; i > ply; i--)
+                board.undo();
+            for (int i = currentPly; i < ply; i++)
+                board.play(moveHistory.getColumn(i), moveHistory.getPlayer(i));
+        } else {
+            // The checkpoint for a ply that hasn't been played past yet
+            // doesn't exist.
+            final int checkpoint = Math.min(ply / CHECKPOINT_INTERVAL, checkpoints.size() - 1);
+            board.restore(checkpoints.get(checkpoint));
+            for (int i = checkpoint * CHECKPOINT_INTERVAL; i < ply; i++)
+                board.play(moveHistory.getColumn(i), moveHistory.getPlayer(i));
+        }
+
+        // Only the moves between the two plies changed.
+        for (int i = Math.min(ply, currentPly); i < Math.max(ply, currentPly); i++) {
+            onPieceChanged.pieceChanged(moveHistory.getColumn(i), moveHistory.getRow(i), i < ply
+                    ? getPlayer(moveHistory.getPlayer(i)).getColor()
+                    : App.BACKGROUND_COLOR);
+        }
 
-        var selectedAction = moveHistory.get(historyPointer);
-        GamePiece selectedGamePiece = getGamePiece(selectedAction.b(), selectedAction.c());
-        selectedGamePiece.setOwner(selectedAction.a());
+        historyPointer = ply - 1;
 
-        if (historyPointerIsAtLatestMove() && !gameOver)
-            setPaused(false);
+        if (historyPointerIsAtLatestMove()) {
+            // Turns can be skipped by the timer, so the side to move isn't
+            // always the opponent of the last mover.
+            board.setSideToMove(liveSideToMove);
+            if (!gameOver)
+                setPaused(false);
+        } else {
+            setPaused(true);
+        }
     }
 
     public boolean historyPointerIsAtLatestMove() {
         return historyPointer == moveHistory.size() - 1;
     }
 
+    public int getHistoryPointer() {
+        return historyPointer;
+    }
+
+    public Player getMovePlayer(int index) {
+        return getPlayer(moveHistory.getPlayer(index));
+    }
+
+    public int getMoveColumn(int index) {
+        return moveHistory.getColumn(index);
+    }
+
+    public int getMoveRow(int index) {
+        return moveHistory.getRow(index);
+    }
+
+    /**
+     * Visits the moves up to and including the history pointer without
+     * allocating.
+     */
+    public void forEachMove(MoveLog.MoveVisitor visitor) {
+        moveHistory.forEach(0, historyPointer + 1, visitor);
+    }
+
     /**
      * @param index Index of the move.
      * @return A Triplet of the Player who made the move, the column of the
      * location of the move, and the row of the location of the move.
      */
     public Triplet<Player, Integer, Integer> getMoveAtIndex(int index) {
-        return moveHistory.get(index);
+        return Tuple.of(getMovePlayer(index), getMoveColumn(index), getMoveRow(index));
     }
 
     /**
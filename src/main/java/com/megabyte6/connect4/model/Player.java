@@ -1,10 +1,13 @@
 package com.megabyte6.connect4.model;
 
 import java.util.function.Supplier;
+import com.megabyte6.connect4.engine.Engine;
 import javafx.scene.paint.Color;
 import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.Setter;
+import lombok.ToString;
 
 @Data
 public class Player {
@@ -16,6 +19,11 @@ public class Player {
     @Setter(AccessLevel.NONE)
     private int score;
     private Color color;
+    // Picks moves when this player is controlled by the computer. Humans
+    // don't have one.
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Engine engine;
 
     public Player() {
         this("John Doe", 0, Color.WHITE);
@@ -35,4 +43,8 @@ public class Player {
         score++;
     }
 
+    public boolean isComputer() {
+        return engine != null;
+    }
+
 }
@@ -7,9 +7,11 @@ import com.fasterxml.jackson.core.exc.StreamReadException;
 import com.fasterxml.jackson.core.exc.StreamWriteException;
 import com.fasterxml.jackson.databind.DatabindException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.megabyte6.connect4.App;
+import com.megabyte6.connect4.engine.TranspositionTable;
 import com.megabyte6.connect4.model.colorwrapper.ColorWrapperDeserializer;
 import com.megabyte6.connect4.model.colorwrapper.ColorWrapperSerializer;
 import javafx.scene.paint.Color;
@@ -19,6 +21,27 @@ import lombok.NonNull;
 @Data
 public class Settings {
 
+    // Building a mapper and its serializers takes longer than reading the
+    // file, so one is shared and warmed up while the app starts.
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final ObjectWriter writer = mapper.writerWithDefaultPrettyPrinter();
+
+    public enum EngineType {
+        ALPHA_BETA("Alpha-beta"),
+        MONTE_CARLO("Monte Carlo");
+
+        private final String displayName;
+
+        EngineType(String displayName) {
+            this.displayName = displayName;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
     private int columnCount;
     private int rowCount;
     private int winRequirement;
@@ -31,10 +54,20 @@ public class Settings {
     @JsonDeserialize(using = ColorWrapperDeserializer.class)
     private Color lineColor;
     private boolean boardWrappingEnabled;
+    // Multiplies how fast pieces drop. Fast enough and they skip straight
+    // to where they land.
+    private double animationSpeed;
 
     private boolean timerEnabled;
     private int timerLength;
     private boolean timerAutoDrop;
+    // In milliseconds. With either of these set, each player keeps their
+    // own clock for the whole game instead of getting timerLength per turn.
+    private int timerIncrement;
+    private int timerDelay;
+    // How often the time left is redrawn, in milliseconds. Under a second
+    // shows tenths.
+    private int timerRefreshInterval;
 
     @NonNull
     @JsonSerialize(using = ColorWrapperSerializer.class)
@@ -52,6 +85,20 @@ public class Settings {
     @JsonDeserialize(using = ColorWrapperDeserializer.class)
     private Color obstacleColor;
 
+    private boolean computerOpponentEnabled;
+    private int computerThinkTime;
+    // Monte Carlo copes better with large and wrapped boards.
+    @NonNull
+    private EngineType engineType;
+    // Uses books/<board>.book for the opening if there is one.
+    private boolean openingBookEnabled;
+    // Lets the computer keep thinking during the other player's turn.
+    private boolean ponderingEnabled;
+    // In megabytes.
+    private int transpositionTableSize;
+    // More threads search deeper in the same time but use more CPU.
+    private int engineThreads;
+
     public Settings() {
         columnCount = 7;
         rowCount = 6;
@@ -59,14 +106,25 @@ public class Settings {
         boardColor = Color.BLUE;
         lineColor = Color.WHITE;
         boardWrappingEnabled = false;
+        animationSpeed = 1;
         timerEnabled = false;
         timerLength = 10000;
         timerAutoDrop = false;
+        timerIncrement = 0;
+        timerDelay = 0;
+        timerRefreshInterval = 1000;
         player1Color = Color.YELLOW;
         player2Color = Color.RED;
         obstaclesEnabled = false;
         numOfObstacles = 5;
         obstacleColor = Color.WHITE;
+        computerOpponentEnabled = false;
+        computerThinkTime = 2000;
+        engineType = EngineType.ALPHA_BETA;
+        openingBookEnabled = true;
+        ponderingEnabled = true;
+        transpositionTableSize = 64;
+        engineThreads = 1;
     }
 
     public int getTimerLengthInSeconds() {
@@ -79,6 +137,61 @@ public class Settings {
         this.timerLength = timerLength * 1000;
     }
 
+    /**
+     * @return {@code true} if players keep their own clock between turns.
+     */
+    public boolean isTimerCarriedOver() {
+        return timerIncrement > 0 || timerDelay > 0;
+    }
+
+    public void setTimerIncrement(int timerIncrement) {
+        if (timerIncrement < 0)
+            throw new IllegalArgumentException("Timer increment cannot be negative.");
+        this.timerIncrement = timerIncrement;
+    }
+
+    public void setTimerDelay(int timerDelay) {
+        if (timerDelay < 0)
+            throw new IllegalArgumentException("Timer delay cannot be negative.");
+        this.timerDelay = timerDelay;
+    }
+
+    public void setTimerRefreshInterval(int timerRefreshInterval) {
+        if (timerRefreshInterval <= 0)
+            throw new IllegalArgumentException("Timer refresh interval must be positive.");
+        this.timerRefreshInterval = timerRefreshInterval;
+    }
+
+    public void setAnimationSpeed(double animationSpeed) {
+        if (!(animationSpeed > 0))
+            throw new IllegalArgumentException("Animation speed must be positive.");
+        this.animationSpeed = animationSpeed;
+    }
+
+    public int getComputerThinkTimeInSeconds() {
+        return computerThinkTime / 1000;
+    }
+
+    public void setComputerThinkTimeInSeconds(int computerThinkTime) {
+        if (computerThinkTime < 0)
+            throw new IllegalArgumentException("Computer think time cannot be negative.");
+        this.computerThinkTime = computerThinkTime * 1000;
+    }
+
+    public void setTranspositionTableSize(int transpositionTableSize) {
+        if (transpositionTableSize < TranspositionTable.MIN_SIZE_MB
+                || transpositionTableSize > TranspositionTable.MAX_SIZE_MB)
+            throw new IllegalArgumentException("Transposition table size must be between "
+                    + TranspositionTable.MIN_SIZE_MB + " and " + TranspositionTable.MAX_SIZE_MB + " MB.");
+        this.transpositionTableSize = transpositionTableSize;
+    }
+
+    public void setEngineThreads(int engineThreads) {
+        if (engineThreads < 1)
+            throw new IllegalArgumentException("The engine needs at least one thread.");
+        this.engineThreads = engineThreads;
+    }
+
     public void setPlayer1Color(@NonNull Color player1Color) {
         this.player1Color = player1Color;
         App.getPlayer1().setColor(player1Color);
@@ -90,15 +203,13 @@ public class Settings {
     }
 
     public void save(Path path) throws IOException, StreamWriteException, DatabindException {
-        final ObjectMapper mapper = new ObjectMapper();
-        mapper.writerWithDefaultPrettyPrinter().writeValue(path.toFile(), this);
+        writer.writeValue(path.toFile(), this);
     }
 
     public static Settings load(Path path) throws IOException, StreamReadException, DatabindException {
         if (Files.isDirectory(path) || !Files.isReadable(path))
             return new Settings();
 
-        final ObjectMapper mapper = new ObjectMapper();
         return mapper.readValue(path.toFile(), Settings.class);
     }
 
@@ -114,4 +225,18 @@ public class Settings {
         return settings;
     }
 
+    /**
+     * Builds the serializers for settings ahead of time so that the first
+     * save doesn't have to. Doesn't read anything, as reading settings
+     * changes the players' colours.
+     */
+    public static void warmUp() {
+        try {
+            writer.writeValueAsBytes(new Settings());
+        } catch (Exception e) {
+            System.err.println("WARNING: Settings serializer failed to warm up.");
+            e.printStackTrace();
+        }
+    }
+
 }
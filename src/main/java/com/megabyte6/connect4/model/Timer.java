@@ -1,23 +1,45 @@
 package com.megabyte6.connect4.model;
 
-import java.time.Duration;
-import com.megabyte6.connect4.App;
+import java.util.concurrent.TimeUnit;
+import com.megabyte6.connect4.util.Scheduler;
 import lombok.EqualsAndHashCode;
 import lombok.NonNull;
 import lombok.ToString;
 
+/**
+ * A countdown clock that measures time with {@link System#nanoTime()}
+ * against a deadline, so late or skipped display updates never change how
+ * much time is left.
+ * <p>
+ * Callbacks run on the FX thread through the shared {@link Scheduler}. The
+ * timeout is scheduled for the deadline itself, and display updates are
+ * scheduled for when the shown time changes, every
+ * {@link #getRefreshInterval() refresh interval}.
+ * <p>
+ * For time controls that carry time over between turns, use
+ * {@link #startTurn()} and {@link #endTurn()}. A turn's delay passes before
+ * the clock starts counting down, and the increment is added once the turn
+ * is over.
+ */
 @ToString
 @EqualsAndHashCode
 public class Timer {
 
     private long startTime;
-    private long time;
-    private long updateDelay;
+    private long refreshInterval;
+    private long increment = 0;
+    private long delay = 0;
+
     private boolean active = false;
+    // While stopped.
+    private long remainingNanos;
+    private long remainingDelayNanos = 0;
+    // While running.
+    private long delayEndNanos;
+    private long deadlineNanos;
 
-    // Since the timer is just a method call. A call to update should not run
-    // if App.delay() is still running.
-    private boolean timerInstanceActive = false;
+    private Scheduler.Handle nextUpdate;
+    private Scheduler.Handle timeout;
 
     @NonNull
     private Runnable onTimeout = () -> {
@@ -30,53 +52,122 @@ public class Timer {
         this(millis, 1000);
     }
 
-    public Timer(long millis, long updateDelay) {
-        startTime = millis;
-        time = startTime;
-        this.updateDelay = updateDelay;
-    }
-
-    private void update() {
-        if (!active) {
-            timerInstanceActive = false;
-            return;
-        }
-
-        time -= updateDelay;
-        onUpdate.run();
-
-        if (time <= 0) {
-            timerInstanceActive = false;
-            stop();
-            time = 0;
-
-            onTimeout.run();
-            return;
-        }
-
-        App.delay(updateDelay, () -> update());
-        timerInstanceActive = true;
+    /**
+     * @param refreshInterval How often, in milliseconds, the time shown
+     *                        should change.
+     */
+    public Timer(long millis, long refreshInterval) {
+        setTime(millis);
+        setRefreshInterval(refreshInterval);
     }
 
+    /**
+     * Resets the clock and starts counting down.
+     */
     public void start() {
         reset();
         resume();
     }
 
+    /**
+     * Starts a turn without resetting the clock: the delay passes and then
+     * the remaining time starts counting down.
+     */
+    public void startTurn() {
+        stop();
+        remainingDelayNanos = TimeUnit.MILLISECONDS.toNanos(delay);
+        resume();
+    }
+
+    /**
+     * Stops the clock and adds the increment.
+     */
+    public void endTurn() {
+        stop();
+        remainingDelayNanos = 0;
+        remainingNanos += TimeUnit.MILLISECONDS.toNanos(increment);
+    }
+
     public void stop() {
+        if (!active)
+            return;
+
+        final long now = System.nanoTime();
+        remainingDelayNanos = Math.max(delayEndNanos - now, 0);
+        remainingNanos = remainingNanos(now);
         active = false;
+
+        if (nextUpdate != null)
+            nextUpdate.cancel();
+        if (timeout != null)
+            timeout.cancel();
+        nextUpdate = null;
+        timeout = null;
     }
 
     public void resume() {
+        if (active)
+            return;
+
+        final long now = System.nanoTime();
+        delayEndNanos = now + remainingDelayNanos;
+        deadlineNanos = delayEndNanos + remainingNanos;
         active = true;
 
-        if (!timerInstanceActive)
-            App.delay(updateDelay, () -> update());
+        scheduleTimeout(now);
+        scheduleUpdate(now);
     }
 
     public void reset() {
-        active = false;
-        setTime(startTime);
+        stop();
+        remainingNanos = TimeUnit.MILLISECONDS.toNanos(startTime);
+        remainingDelayNanos = 0;
+    }
+
+    private void scheduleTimeout(long now) {
+        timeout = Scheduler.schedule(toMillisRoundingUp(deadlineNanos - now), () -> {
+            final long time = System.nanoTime();
+            // The scheduler works in whole milliseconds.
+            if (time < deadlineNanos) {
+                scheduleTimeout(time);
+                return;
+            }
+
+            stop();
+            onUpdate.run();
+            onTimeout.run();
+        });
+    }
+
+    /**
+     * Schedules the next display update for when the time shown next
+     * changes, working from the deadline so that updates don't drift.
+     */
+    private void scheduleUpdate(long now) {
+        final long interval = TimeUnit.MILLISECONDS.toNanos(refreshInterval);
+        final long remaining = remainingNanos(now);
+        long wait = remaining % interval;
+        if (wait == 0)
+            wait = interval;
+        wait += Math.max(delayEndNanos - now, 0);
+        // The timeout shows the final time.
+        if (wait >= remaining + Math.max(delayEndNanos - now, 0))
+            return;
+
+        nextUpdate = Scheduler.schedule(toMillisRoundingUp(wait), () -> {
+            onUpdate.run();
+            scheduleUpdate(System.nanoTime());
+        });
+    }
+
+    private long remainingNanos(long now) {
+        if (!active)
+            return remainingNanos;
+        return Math.max(deadlineNanos - Math.max(now, delayEndNanos), 0);
+    }
+
+    private static long toMillisRoundingUp(long nanos) {
+        return Math.max((nanos + 999_999) / 1_000_000, 0);
     }
 
     public long getStartTime() {
@@ -90,19 +181,32 @@ public class Timer {
     }
 
     public long getRemainingTime() {
-        return time;
+        return TimeUnit.NANOSECONDS.toMillis(remainingNanos(System.nanoTime()));
     }
 
     public void setTime(long millis) {
         if (millis < 0)
             throw new IllegalArgumentException("Timer time cannot be negative");
+        final boolean wasActive = active;
+        stop();
         setStartTime(millis);
-        time = millis;
+        remainingNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+        if (wasActive)
+            resume();
     }
 
+    /**
+     * @return The time left, rounded up to the second so that it only shows
+     *         0 when the time is up. Tenths of a second are shown if the clock
+     *         refreshes more than once a second.
+     */
     public String getFormattedTime() {
-        final Duration duration = Duration.ofMillis(time);
-        final long seconds = duration.getSeconds();
+        final long remaining = remainingNanos(System.nanoTime());
+        final boolean tenths = refreshInterval < 1000;
+        final long unit = TimeUnit.MILLISECONDS.toNanos(tenths ? 100 : 1000);
+        final long units = (remaining + unit - 1) / unit;
+
+        final long seconds = tenths ? units / 10 : units;
         final long dd = seconds / 86400;
         final long HH = seconds / 3600;
         final long mm = (seconds % 3600) / 60;
@@ -110,17 +214,49 @@ public class Timer {
         return (dd > 0 ? dd + ":" : "")
                 + (HH > 0 ? HH + ":" : "")
                 + (mm > 0 ? mm + ":" : "")
-                + (ss > 0 ? ss + "" : "0");
+                + (ss > 0 || tenths ? ss + "" : "0")
+                + (tenths ? "." + units % 10 : "");
     }
 
-    public long getUpdateDelay() {
-        return updateDelay;
+    public long getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    public void setRefreshInterval(long millis) {
+        if (millis <= 0)
+            throw new IllegalArgumentException("Refresh interval must be positive.");
+        refreshInterval = millis;
+    }
+
+    public long getIncrement() {
+        return increment;
+    }
+
+    /**
+     * @param millis Time added to the clock at the end of every turn.
+     */
+    public void setIncrement(long millis) {
+        if (millis < 0)
+            throw new IllegalArgumentException("Increment cannot be negative.");
+        increment = millis;
+    }
+
+    public long getDelay() {
+        return delay;
+    }
+
+    /**
+     * @param millis Time at the start of every turn before the clock starts
+     *               counting down.
+     */
+    public void setDelay(long millis) {
+        if (millis < 0)
+            throw new IllegalArgumentException("Delay cannot be negative.");
+        delay = millis;
     }
 
-    public void setUpdateDelay(long updateDelay) {
-        if (updateDelay < 0)
-            throw new IllegalArgumentException();
-        this.updateDelay = updateDelay;
+    public boolean isActive() {
+        return active;
     }
 
     public void setOnTimeout(@NonNull Runnable onTimeout) {
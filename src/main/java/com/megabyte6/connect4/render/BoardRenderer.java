@@ -0,0 +1,55 @@
+package com.megabyte6.connect4.render;
+
+import javafx.geometry.Point2D;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+
+/**
+ * Draws the grid and pieces of a board inside a {@link Pane}, which is
+ * sized and coloured by whoever owns it. Cells are addressed like the
+ * {@link com.megabyte6.connect4.engine.Board}, with row 0 at the top.
+ * <p>
+ * Nothing is bound to the pane's size. The owner works out the size of a
+ * cell once per resize and passes it to {@link #layout(double)}.
+ */
+public interface BoardRenderer {
+
+    // Boards with more cells than this are painted on a canvas, which is
+    // much cheaper than a node per cell once there are many of them.
+    int CANVAS_THRESHOLD = 400;
+    // Gap between a piece and the edges of its cell.
+    int PIECE_BORDER = 5;
+
+    /**
+     * Picks the renderer that suits a board of this size and adds it to
+     * {@code pane}.
+     *
+     * @param emptyFill The fill of cells without a piece.
+     */
+    static BoardRenderer create(Pane pane, int columns, int rows, Color lineColor, Paint emptyFill) {
+        return columns * rows > CANVAS_THRESHOLD
+                ? new CanvasBoardRenderer(pane, columns, rows, lineColor, emptyFill)
+                : new NodeBoardRenderer(pane, columns, rows, lineColor, emptyFill);
+    }
+
+    static double pieceRadius(double cellSize) {
+        return cellSize / 2 - PIECE_BORDER;
+    }
+
+    /**
+     * Places everything for square cells of {@code cellSize}, with the top
+     * left cell in the pane's top left corner.
+     */
+    void layout(double cellSize);
+
+    void setFill(int column, int row, Paint fill);
+
+    /**
+     * @return The centre of the cell in the pane's coordinates.
+     */
+    Point2D getCellCenter(int column, int row);
+
+    double getPieceRadius();
+
+}
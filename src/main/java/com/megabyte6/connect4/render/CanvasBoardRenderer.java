@@ -0,0 +1,175 @@
+package com.megabyte6.connect4.render;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import javafx.application.Platform;
+import javafx.geometry.Point2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+
+/**
+ * Paints the whole board on one {@link Canvas}, so the scene graph holds a
+ * single node however big the board is.
+ * <p>
+ * Each fill is drawn into a sprite once per piece size and then copied into
+ * cells. Changing a piece only marks its cell as dirty, and dirty cells are
+ * repainted together once the FX thread is free, so changing many pieces at
+ * once (when scrubbing through the history, for one) costs one repaint.
+ * Only a new layout repaints the whole board.
+ */
+public class CanvasBoardRenderer implements BoardRenderer {
+
+    private final Canvas canvas = new Canvas();
+    private final int columns;
+    private final int rows;
+    private final Color lineColor;
+
+    // [column * rows + row]
+    private final Paint[] fills;
+    private final BitSet dirty;
+    private boolean fullRepaint = true;
+    private boolean repaintQueued = false;
+
+    private double cellSize = 0;
+    private double radius = 0;
+    // Sprites for the current radius, by fill.
+    private final Map<Paint, Image> sprites = new HashMap<>();
+
+    public CanvasBoardRenderer(Pane pane, int columns, int rows, Color lineColor, Paint emptyFill) {
+        this.columns = columns;
+        this.rows = rows;
+        this.lineColor = lineColor;
+
+        fills = new Paint[columns * rows];
+        Arrays.fill(fills, emptyFill);
+        dirty = new BitSet(fills.length);
+
+        pane.getChildren().add(canvas);
+    }
+
+    @Override
+    public void layout(double cellSize) {
+        if (cellSize == this.cellSize)
+            return;
+
+        this.cellSize = cellSize;
+        radius = BoardRenderer.pieceRadius(cellSize);
+        sprites.clear();
+        canvas.setWidth(cellSize * columns);
+        canvas.setHeight(cellSize * rows);
+
+        fullRepaint = true;
+        queueRepaint();
+    }
+
+    @Override
+    public void setFill(int column, int row, Paint fill) {
+        final int cell = column * rows + row;
+        if (fills[cell].equals(fill))
+            return;
+
+        fills[cell] = fill;
+        dirty.set(cell);
+        queueRepaint();
+    }
+
+    @Override
+    public Point2D getCellCenter(int column, int row) {
+        return new Point2D((column + 0.5) * cellSize, (row + 0.5) * cellSize);
+    }
+
+    @Override
+    public double getPieceRadius() {
+        return radius;
+    }
+
+    private void queueRepaint() {
+        if (repaintQueued)
+            return;
+        repaintQueued = true;
+        Platform.runLater(this::repaint);
+    }
+
+    private void repaint() {
+        repaintQueued = false;
+        final GraphicsContext graphics = canvas.getGraphicsContext2D();
+        graphics.setStroke(lineColor);
+        graphics.setLineWidth(1);
+
+        if (fullRepaint) {
+            fullRepaint = false;
+            dirty.clear();
+
+            // The pane's background shows through.
+            graphics.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+            for (int row = 0; row <= rows; row++)
+                graphics.strokeLine(0, row * cellSize, canvas.getWidth(), row * cellSize);
+            for (int column = 0; column <= columns; column++)
+                graphics.strokeLine(column * cellSize, 0, column * cellSize, canvas.getHeight());
+            for (int cell = 0; cell < fills.length; cell++)
+                drawPiece(graphics, cell / rows, cell % rows);
+            return;
+        }
+
+        for (int cell = dirty.nextSetBit(0); cell != -1; cell = dirty.nextSetBit(cell + 1)) {
+            final int column = cell / rows;
+            final int row = cell % rows;
+            final double x = column * cellSize;
+            final double y = row * cellSize;
+            graphics.clearRect(x, y, cellSize, cellSize);
+            graphics.strokeRect(x, y, cellSize, cellSize);
+            drawPiece(graphics, column, row);
+        }
+        dirty.clear();
+    }
+
+    private void drawPiece(GraphicsContext graphics, int column, int row) {
+        if (radius <= 0)
+            return;
+
+        // Leave room for the outline.
+        final double size = 2 * radius + 2;
+        final double x = (column + 0.5) * cellSize - size / 2;
+        final double y = (row + 0.5) * cellSize - size / 2;
+        graphics.drawImage(getSprite(fills[column * rows + row]), x, y, size, size);
+    }
+
+    private Image getSprite(Paint fill) {
+        Image sprite = sprites.get(fill);
+        if (sprite == null) {
+            sprite = createSprite(fill);
+            sprites.put(fill, sprite);
+        }
+        return sprite;
+    }
+
+    private Image createSprite(Paint fill) {
+        // Draw at the screen's resolution so that sprites stay sharp when the
+        // desktop is scaled.
+        final double scale = canvas.getScene() == null || canvas.getScene().getWindow() == null
+                ? 1
+                : canvas.getScene().getWindow().getOutputScaleX();
+        final double size = 2 * radius + 2;
+
+        final Canvas spriteCanvas = new Canvas(Math.ceil(size * scale), Math.ceil(size * scale));
+        final GraphicsContext graphics = spriteCanvas.getGraphicsContext2D();
+        graphics.scale(scale, scale);
+        graphics.setFill(fill);
+        graphics.fillOval(1, 1, 2 * radius, 2 * radius);
+        graphics.setStroke(lineColor);
+        graphics.setLineWidth(1);
+        graphics.strokeOval(1, 1, 2 * radius, 2 * radius);
+
+        final SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        return spriteCanvas.snapshot(parameters, null);
+    }
+
+}
@@ -0,0 +1,177 @@
+package com.megabyte6.connect4.render;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import javafx.animation.AnimationTimer;
+import javafx.animation.Interpolator;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.Circle;
+
+/**
+ * Animates pieces dropping into the board and bouncing.
+ * <p>
+ * Every piece in the air is moved by the same {@link AnimationTimer}, so
+ * drops that overlap in quick computer games or replays cost one callback a
+ * frame between them. Their circles are kept on the layer and reused rather
+ * than made for each drop. If too many are in the air at once, or the speed
+ * is at least {@link #SKIP_SPEED}, pieces skip straight to where they land.
+ */
+public class DropAnimator {
+
+    // At this speed or faster nothing is animated.
+    public static final double SKIP_SPEED = 8;
+    // Drops in the air at once. Any more land straight away.
+    private static final int MAX_DROPS = 16;
+    // Height of the bounce as a share of the drop.
+    private static final double BOUNCE_HEIGHT = 1.0 / 8;
+    // In units of the time the first fall takes: the fall, the bounce up,
+    // and a quarter as long to fall back down.
+    private static final double LENGTH = 2.25;
+
+    private final Pane layer;
+    private double speed = 1;
+
+    private final List<Drop> drops = new ArrayList<>(MAX_DROPS);
+    private final Deque<Drop> pool = new ArrayDeque<>(MAX_DROPS);
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            update(now);
+        }
+    };
+
+    /**
+     * @param layer Where the falling pieces are shown. Coordinates passed to
+     *              {@link #drop} are in its coordinates.
+     */
+    public DropAnimator(Pane layer) {
+        this.layer = layer;
+    }
+
+    /**
+     * Drops a piece from {@code (x, fromY)} to {@code (x, toY)}.
+     *
+     * @param onLanded Run on the FX thread once the piece comes to rest,
+     *                 which is straight away if it isn't animated.
+     */
+    public void drop(Paint fill, double radius, double x, double fromY, double toY, Runnable onLanded) {
+        // The first fall takes a millisecond for every 2 pixels.
+        final double fallMillis = (toY - fromY - radius) / 2 / speed;
+        if (speed >= SKIP_SPEED || fallMillis <= 0 || drops.size() >= MAX_DROPS) {
+            onLanded.run();
+            return;
+        }
+
+        Drop drop = pool.poll();
+        if (drop == null) {
+            drop = new Drop();
+            layer.getChildren().add(drop.circle);
+        }
+        drop.fromY = fromY;
+        drop.toY = toY;
+        drop.fallNanos = fallMillis * 1_000_000;
+        drop.startNanos = System.nanoTime();
+        drop.onLanded = onLanded;
+
+        drop.circle.setFill(fill);
+        drop.circle.setRadius(radius);
+        drop.circle.setCenterX(x);
+        drop.circle.setCenterY(fromY);
+        drop.circle.setVisible(true);
+
+        drops.add(drop);
+        if (drops.size() == 1)
+            timer.start();
+    }
+
+    /**
+     * Lands every piece in the air now.
+     */
+    public void finishAll() {
+        while (!drops.isEmpty())
+            land(drops.size() - 1);
+        timer.stop();
+    }
+
+    private void update(long now) {
+        // Backwards, so that landing a drop doesn't skip the next one.
+        for (int i = drops.size() - 1; i >= 0; i--) {
+            final Drop drop = drops.get(i);
+            // The frame's time can be from just before the drop started.
+            final double time = Math.max(now - drop.startNanos, 0) / drop.fallNanos;
+            if (time >= LENGTH)
+                land(i);
+            else
+                drop.circle.setCenterY(drop.getY(time));
+        }
+
+        if (drops.isEmpty())
+            timer.stop();
+    }
+
+    private void land(int index) {
+        final Drop drop = drops.get(index);
+        // Swap with the last drop so that removing it doesn't shift the
+        // rest.
+        drops.set(index, drops.get(drops.size() - 1));
+        drops.remove(drops.size() - 1);
+
+        drop.circle.setVisible(false);
+        final Runnable onLanded = drop.onLanded;
+        drop.onLanded = null;
+        pool.push(drop);
+
+        onLanded.run();
+    }
+
+    public int getDropCount() {
+        return drops.size();
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * @param speed How many times faster than normal pieces drop. Drops
+     *              already in the air keep their speed.
+     */
+    public void setSpeed(double speed) {
+        if (!(speed > 0))
+            throw new IllegalArgumentException("Animation speed must be positive.");
+        this.speed = speed;
+    }
+
+    private static final class Drop {
+
+        private final Circle circle = new Circle();
+        private double fromY;
+        private double toY;
+        private double fallNanos;
+        private long startNanos;
+        private Runnable onLanded;
+
+        Drop() {
+            // Laid out by hand, so it shouldn't affect the layer's size.
+            circle.setManaged(false);
+            circle.setVisible(false);
+        }
+
+        /**
+         * @param time In units of the first fall's length.
+         */
+        double getY(double time) {
+            final double top = toY - (toY - fromY) * BOUNCE_HEIGHT;
+            if (time < 1)
+                return Interpolator.EASE_IN.interpolate(fromY, toY, time);
+            if (time < 2)
+                return Interpolator.EASE_OUT.interpolate(toY, top, time - 1);
+            return Interpolator.EASE_IN.interpolate(top, toY, (time - 2) / (LENGTH - 2));
+        }
+
+    }
+
+}
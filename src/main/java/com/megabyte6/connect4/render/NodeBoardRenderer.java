@@ -0,0 +1,96 @@
+package com.megabyte6.connect4.render;
+
+import com.megabyte6.connect4.model.GamePiece;
+import javafx.geometry.Point2D;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.Line;
+
+/**
+ * Draws every grid line and cell as a node of its own. Simple, but each node
+ * costs memory and layout time, so it's only meant for small boards.
+ */
+public class NodeBoardRenderer implements BoardRenderer {
+
+    private final Line[] horizontalLines;
+    private final Line[] verticalLines;
+    // [column][row]
+    private final GamePiece[][] pieces;
+    private double radius = 0;
+
+    public NodeBoardRenderer(Pane pane, int columns, int rows, Color lineColor, Paint emptyFill) {
+        horizontalLines = new Line[rows + 1];
+        verticalLines = new Line[columns + 1];
+        pieces = new GamePiece[columns][rows];
+
+        for (int i = 0; i < horizontalLines.length; i++)
+            horizontalLines[i] = createLine(pane, lineColor);
+        for (int i = 0; i < verticalLines.length; i++)
+            verticalLines[i] = createLine(pane, lineColor);
+
+        for (int column = 0; column < columns; column++) {
+            for (int row = 0; row < rows; row++) {
+                final GamePiece blankPiece = new GamePiece();
+                blankPiece.setFill(emptyFill);
+                blankPiece.setStroke(lineColor);
+
+                pieces[column][row] = blankPiece;
+                pane.getChildren().add(blankPiece);
+            }
+        }
+    }
+
+    private static Line createLine(Pane pane, Color color) {
+        final Line line = new Line();
+        line.setStroke(color);
+        pane.getChildren().add(line);
+        return line;
+    }
+
+    @Override
+    public void layout(double cellSize) {
+        final double width = cellSize * (verticalLines.length - 1);
+        final double height = cellSize * (horizontalLines.length - 1);
+        radius = BoardRenderer.pieceRadius(cellSize);
+
+        for (int i = 0; i < horizontalLines.length; i++) {
+            final Line line = horizontalLines[i];
+            line.setStartY(i * cellSize);
+            line.setEndX(width);
+            line.setEndY(i * cellSize);
+        }
+        for (int i = 0; i < verticalLines.length; i++) {
+            final Line line = verticalLines[i];
+            line.setStartX(i * cellSize);
+            line.setEndX(i * cellSize);
+            line.setEndY(height);
+        }
+
+        for (int column = 0; column < pieces.length; column++) {
+            for (int row = 0; row < pieces[column].length; row++) {
+                final GamePiece piece = pieces[column][row];
+                piece.setLayoutX((column + 0.5) * cellSize);
+                piece.setLayoutY((row + 0.5) * cellSize);
+                piece.setRadius(radius);
+            }
+        }
+    }
+
+    @Override
+    public void setFill(int column, int row, Paint fill) {
+        pieces[column][row].setFill(fill);
+    }
+
+    @Override
+    public Point2D getCellCenter(int column, int row) {
+        final GamePiece piece = pieces[column][row];
+        return new Point2D(piece.getLayoutX(), piece.getLayoutY());
+    }
+
+    @Override
+    public double getPieceRadius() {
+        return radius;
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.megabyte6.connect4.util;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import javafx.application.Platform;
+
+/**
+ * Hands values from any thread to the FX thread, keeping only the latest.
+ * However often values are submitted, at most one
+ * {@link Platform#runLater(Runnable)} is waiting at a time. Values that
+ * arrive before it runs replace the one it will deliver, so a busy producer
+ * can't flood the FX thread.
+ */
+public class CoalescedUpdater<T> {
+
+    private final AtomicReference<T> pending = new AtomicReference<>();
+    private final Consumer<T> consumer;
+
+    /**
+     * @param consumer Called on the FX thread with the latest value.
+     */
+    public CoalescedUpdater(Consumer<T> consumer) {
+        if (consumer == null)
+            throw new IllegalArgumentException("Updates need somewhere to go.");
+        this.consumer = consumer;
+    }
+
+    public void submit(T value) {
+        if (value == null)
+            throw new IllegalArgumentException("Cannot submit null.");
+
+        // Only the submit that finds nothing waiting has to schedule a
+        // delivery.
+        if (pending.getAndSet(value) == null)
+            Platform.runLater(this::deliver);
+    }
+
+    /**
+     * Drops the value waiting to be delivered, if there is one.
+     */
+    public void clear() {
+        pending.set(null);
+    }
+
+    private void deliver() {
+        final T value = pending.getAndSet(null);
+        if (value != null)
+            consumer.accept(value);
+    }
+
+}
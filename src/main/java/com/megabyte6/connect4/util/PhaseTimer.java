@@ -0,0 +1,74 @@
+package com.megabyte6.connect4.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import lombok.NonNull;
+
+/**
+ * Times the phases of something like startup, which may run at the same
+ * time on different threads. Every phase is measured from when the timer
+ * was made, so the report shows what overlapped.
+ */
+public class PhaseTimer {
+
+    private final long startNanos = System.nanoTime();
+    // Guarded by this.
+    private final List<Phase> phases = new ArrayList<>();
+
+    public <T> T time(@NonNull String name, @NonNull Supplier<T> work) {
+        final long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            add(name, start, System.nanoTime());
+        }
+    }
+
+    public void time(@NonNull String name, @NonNull Runnable work) {
+        time(name, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Records a phase from now until {@code work} completes, for work that
+     * has been handed to another thread.
+     */
+    public <T> CompletableFuture<T> time(@NonNull String name, @NonNull CompletableFuture<T> work) {
+        final long start = System.nanoTime();
+        return work.whenComplete((result, exception) -> add(name, start, System.nanoTime()));
+    }
+
+    /**
+     * Records a phase that started with the timer and ends now.
+     */
+    public void mark(@NonNull String name) {
+        add(name, startNanos, System.nanoTime());
+    }
+
+    private synchronized void add(String name, long start, long end) {
+        phases.add(new Phase(name, Thread.currentThread().getName(), start - startNanos, end - start));
+    }
+
+    /**
+     * @return One line per phase in the order they started, in
+     *         milliseconds.
+     */
+    public synchronized String report() {
+        final StringBuilder report = new StringBuilder(
+                String.format("%-24s %9s %9s  %s%n", "phase", "start", "took", "thread"));
+        phases.stream()
+                .sorted(Comparator.comparingLong(Phase::startNanos))
+                .forEach(phase -> report.append(String.format("%-24s %9.1f %9.1f  %s%n",
+                        phase.name(), phase.startNanos() / 1e6, phase.durationNanos() / 1e6, phase.thread())));
+        return report.toString();
+    }
+
+    private record Phase(String name, String thread, long startNanos, long durationNanos) {
+    }
+
+}
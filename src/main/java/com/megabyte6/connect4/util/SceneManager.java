@@ -3,7 +3,15 @@ package com.megabyte6.connect4.util;
 import static javafx.util.Duration.millis;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import com.megabyte6.connect4.controller.Controller;
 import com.megabyte6.connect4.util.tuple.Pair;
 import com.megabyte6.connect4.util.tuple.Tuple;
@@ -33,6 +41,21 @@ public class SceneManager {
 
     private static final String RESOURCE_PATH = "/com/megabyte6/connect4/view/";
 
+    // Loaded views that aren't showing, by FXML name. Parsing FXML takes far
+    // longer than a frame, so views are loaded ahead of time and put back
+    // here once they're taken off screen.
+    private static final Map<String, Deque<Pair<Node, Controller>>> cache = new ConcurrentHashMap<>();
+    private static final int MAX_CACHED_VIEWS = 2;
+    // Views that should always have a spare loaded.
+    private static final Set<String> preloaded = ConcurrentHashMap.newKeySet();
+    // Key of the FXML name and controller in a loaded view's properties.
+    private static final String VIEW_KEY = SceneManager.class.getName() + ".view";
+    private static final ExecutorService preloader = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "fxml-preloader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     @Getter
     private static Stage stage;
 
@@ -68,10 +91,64 @@ public class SceneManager {
         return loadFXMLAndController(fxmlFileName).a();
     }
 
+    /**
+     * Loads views on a background thread, so that showing them later
+     * doesn't have to wait for their FXML to be parsed. A new one is loaded
+     * whenever the last one is taken.
+     * <p>
+     * Nodes may be made on any thread until they're shown, but windows may
+     * not. Views that are preloaded mustn't make windows, such as tooltips
+     * or context menus, in their FXML or {@code initialize}. They can make
+     * them in {@link Controller#reset()} instead.
+     *
+     * @return Completes once every view has been loaded, or has failed to
+     *         and will be loaded when it's needed instead.
+     */
+    public static CompletableFuture<Void> preload(String... fxmlFileNames) {
+        final CompletableFuture<?>[] loads = new CompletableFuture<?>[fxmlFileNames.length];
+        for (int i = 0; i < fxmlFileNames.length; i++) {
+            final String fxmlFileName = fxmlFileNames[i];
+            preloaded.add(fxmlFileName);
+            loads[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    final Pair<Node, Controller> view = parseFXML(fxmlFileName);
+                    if (view != null)
+                        cacheView(fxmlFileName, view);
+                } catch (RuntimeException e) {
+                    // It will be loaded on the FX thread when it's needed.
+                    System.err.println("WARNING: Cannot preload '" + fxmlFileName + "'");
+                    e.printStackTrace();
+                }
+            }, preloader);
+        }
+        return CompletableFuture.allOf(loads);
+    }
+
+    /**
+     * Gets a view, loaded ahead of time if there is one, and
+     * {@link Controller#reset() resets} its controller. Call on the FX
+     * thread.
+     */
     public static Pair<Node, Controller> loadFXMLAndController(String fxmlFileName) {
         if (fxmlFileName == null)
             return null;
 
+        final Deque<Pair<Node, Controller>> cached = cache.get(fxmlFileName);
+        Pair<Node, Controller> view = cached == null ? null : cached.poll();
+        if (view == null)
+            view = parseFXML(fxmlFileName);
+        if (view == null)
+            return null;
+
+        if (preloaded.contains(fxmlFileName) && (cached == null || cached.isEmpty()))
+            preload(fxmlFileName);
+
+        if (view.b() != null)
+            view.b().reset();
+        return view;
+    }
+
+    private static Pair<Node, Controller> parseFXML(String fxmlFileName) {
         final String path = RESOURCE_PATH + fxmlFileName + ".fxml";
         final Node root;
         final Controller controller;
@@ -86,9 +163,25 @@ public class SceneManager {
             return null;
         }
 
+        root.getProperties().put(VIEW_KEY, Tuple.of(fxmlFileName, controller));
         return Tuple.of(root, controller);
     }
 
+    private static void cacheView(String fxmlFileName, Pair<Node, Controller> view) {
+        final Deque<Pair<Node, Controller>> cached = cache.computeIfAbsent(fxmlFileName,
+                key -> new ConcurrentLinkedDeque<>());
+        if (cached.size() < MAX_CACHED_VIEWS)
+            cached.push(view);
+    }
+
+    /**
+     * Puts a view that has been taken off screen back in the cache.
+     */
+    private static void release(Node node) {
+        if (node != null && node.getProperties().get(VIEW_KEY) instanceof Pair<?, ?> view)
+            cacheView((String) view.a(), Tuple.of(node, (Controller) view.b()));
+    }
+
     public static void switchScenes(String fxmlName, Duration totalTransitionDuration) {
         // Get old scene.
         final Scene oldScene = SceneManager.scene;
@@ -131,6 +224,11 @@ public class SceneManager {
             SceneManager.stage.setScene(SceneManager.scene);
             // Start the new scene's fade-in animation.
             newSceneFadeIn.play();
+
+            // The old scene's views can be shown again.
+            final List<Node> oldViews = List.copyOf(oldSceneStack.getChildren());
+            oldSceneStack.getChildren().clear();
+            oldViews.forEach(SceneManager::release);
         });
         oldSceneFadeOut.play();
     }
@@ -226,13 +324,18 @@ public class SceneManager {
     public static boolean removeScene(Node node) {
         if (node == null)
             return false;
-        return SceneManager.sceneStack.getChildren().remove(node);
+        if (!SceneManager.sceneStack.getChildren().remove(node))
+            return false;
+        release(node);
+        return true;
     }
 
     public static Node removeScene(int index) {
         if (index < 0 || index >= SceneManager.sceneStack.getChildren().size())
             return null;
-        return SceneManager.sceneStack.getChildren().remove(index);
+        final Node node = SceneManager.sceneStack.getChildren().remove(index);
+        release(node);
+        return node;
     }
 
     public static Node removeTopScene() {
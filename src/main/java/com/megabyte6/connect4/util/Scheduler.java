@@ -0,0 +1,203 @@
+package com.megabyte6.connect4.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javafx.application.Platform;
+import lombok.NonNull;
+
+/**
+ * One shared thread that runs delayed and repeating callbacks on the FX
+ * thread. The thread only waits for callbacks to be due and hands them to
+ * the FX thread, so any number of delays can be pending without each one
+ * getting a thread of its own. Callbacks are kept in a {@link TimingWheel},
+ * so scheduling and cancelling them stays cheap with thousands of game
+ * clocks running.
+ * <p>
+ * Every callback gets a {@link Handle} that can cancel it, even once it's
+ * already been handed to the FX thread. The scheduler also counts ticks and
+ * measures lag: how late callbacks actually run on the FX thread compared
+ * to when they were due.
+ */
+public class Scheduler {
+
+    private static final TimingWheel wheel = new TimingWheel("scheduler", 1);
+
+    private static final LongAdder scheduled = new LongAdder();
+    private static final LongAdder ticks = new LongAdder();
+    private static final LongAdder cancelled = new LongAdder();
+    private static final LongAdder totalLagNanos = new LongAdder();
+    private static final AtomicLong maxLagNanos = new AtomicLong();
+
+    private Scheduler() {
+    }
+
+    /**
+     * Runs {@code task} on the FX thread once {@code millis} have passed.
+     */
+    public static Handle schedule(long millis, @NonNull Runnable task) {
+        if (millis < 0)
+            throw new IllegalArgumentException("Delay time cannot be negative.");
+
+        final Handle handle = new Handle(task, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis), 0);
+        synchronized (handle) {
+            handle.timeout = wheel.schedule(millis, handle::dispatch);
+        }
+        scheduled.increment();
+        return handle;
+    }
+
+    /**
+     * Runs {@code task} on the FX thread every {@code periodMillis}, starting
+     * after {@code initialDelayMillis}, until it's cancelled. Ticks are due
+     * at fixed times rather than a fixed time after the last one ran, and if
+     * the FX thread falls behind, missed ticks are merged rather than queued
+     * up.
+     */
+    public static Handle scheduleAtFixedRate(long initialDelayMillis, long periodMillis, @NonNull Runnable task) {
+        if (initialDelayMillis < 0)
+            throw new IllegalArgumentException("Delay time cannot be negative.");
+        if (periodMillis <= 0)
+            throw new IllegalArgumentException("Period must be positive.");
+
+        final Handle handle = new Handle(task,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(initialDelayMillis),
+                TimeUnit.MILLISECONDS.toNanos(periodMillis));
+        synchronized (handle) {
+            handle.timeout = wheel.schedule(initialDelayMillis, handle::dispatch);
+        }
+        scheduled.increment();
+        return handle;
+    }
+
+    public static Stats getStats() {
+        final long tickCount = ticks.sum();
+        return new Stats(scheduled.sum(), tickCount, cancelled.sum(), wheel.size(),
+                tickCount == 0 ? 0 : totalLagNanos.sum() / tickCount, maxLagNanos.get());
+    }
+
+    /**
+     * A pending callback.
+     */
+    public static final class Handle {
+
+        private final Runnable task;
+        private final long periodNanos;
+        // Guarded by this.
+        private TimingWheel.Timeout timeout;
+        private volatile boolean cancelled = false;
+        // Due time of the next tick to run on the FX thread.
+        private volatile long dueNanos;
+        // Due time of the next tick to hand to the FX thread. Only used on
+        // the scheduler thread.
+        private long nextDispatchNanos;
+        // Set while a tick is waiting for the FX thread.
+        private final AtomicBoolean dispatched = new AtomicBoolean();
+        private volatile boolean ran = false;
+
+        private Handle(Runnable task, long dueNanos, long periodNanos) {
+            this.task = task;
+            this.dueNanos = dueNanos;
+            this.periodNanos = periodNanos;
+            nextDispatchNanos = dueNanos;
+        }
+
+        private void dispatch() {
+            if (cancelled)
+                return;
+            if (dispatched.compareAndSet(false, true))
+                Platform.runLater(this::run);
+
+            if (periodNanos > 0) {
+                // Work from when ticks were due rather than when this one
+                // ran, so that the rate doesn't drift.
+                final long now = System.nanoTime();
+                do {
+                    nextDispatchNanos += periodNanos;
+                } while (nextDispatchNanos <= now);
+                synchronized (this) {
+                    // Rounded up so that no tick is handed over early.
+                    if (!cancelled)
+                        timeout = wheel.schedule((nextDispatchNanos - now + 999_999) / 1_000_000, this::dispatch);
+                }
+            }
+        }
+
+        private void run() {
+            dispatched.set(false);
+            if (cancelled)
+                return;
+
+            final long now = System.nanoTime();
+            final long lag = Math.max(now - dueNanos, 0);
+            totalLagNanos.add(lag);
+            maxLagNanos.accumulateAndGet(lag, Math::max);
+            ticks.increment();
+            if (periodNanos > 0) {
+                // Skip the ticks that were merged into this one.
+                final long missed = Math.max((now - dueNanos) / periodNanos, 0);
+                dueNanos += (missed + 1) * periodNanos;
+            } else {
+                ran = true;
+            }
+
+            task.run();
+        }
+
+        /**
+         * Stops the callback from running again, including a tick that is
+         * already waiting for the FX thread.
+         *
+         * @return {@code false} if it was already cancelled.
+         */
+        public boolean cancel() {
+            if (cancelled)
+                return false;
+
+            cancelled = true;
+            synchronized (this) {
+                if (timeout != null)
+                    timeout.cancel();
+            }
+            Scheduler.cancelled.increment();
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @return {@code true} once a one off callback has run or any
+         *         callback has been cancelled.
+         */
+        public boolean isDone() {
+            return cancelled || ran;
+        }
+
+    }
+
+    /**
+     * @param scheduled       Callbacks scheduled so far.
+     * @param ticks           Times a callback has run.
+     * @param cancelled       Callbacks cancelled so far.
+     * @param pending         Callbacks waiting to be due.
+     * @param averageLagNanos Average time between a callback being due and
+     *                        it running on the FX thread.
+     * @param maxLagNanos     Longest such wait.
+     */
+    public record Stats(long scheduled, long ticks, long cancelled, int pending, long averageLagNanos,
+            long maxLagNanos) {
+
+        @Override
+        public String toString() {
+            return "Scheduler(scheduled=" + scheduled + ", ticks=" + ticks + ", cancelled=" + cancelled
+                    + ", pending=" + pending
+                    + ", averageLag=" + TimeUnit.NANOSECONDS.toMicros(averageLagNanos) + "us"
+                    + ", maxLag=" + TimeUnit.NANOSECONDS.toMicros(maxLagNanos) + "us)";
+        }
+
+    }
+
+}
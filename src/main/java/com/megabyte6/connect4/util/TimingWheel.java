@@ -0,0 +1,287 @@
+package com.megabyte6.connect4.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import lombok.NonNull;
+
+/**
+ * Hierarchical hashed timing wheel: one thread runs any number of delayed
+ * tasks, and scheduling or cancelling one takes constant time however many
+ * are pending.
+ * <p>
+ * Time moves in ticks of a fixed length. The first wheel has a slot for each
+ * of the next {@code slots} ticks. Each wheel above it covers {@code slots}
+ * times as much time with the same number of slots, and when the wheel below
+ * it comes round, the next slot's tasks are moved down to where they now
+ * belong. A task is moved at most once per wheel, so a long delay costs
+ * little more than a short one.
+ * <p>
+ * Tasks run on the wheel's thread, one after another, no earlier than their
+ * delay and usually less than a tick late. They should be quick and hand
+ * anything slow to another thread. While nothing is scheduled, the thread
+ * sleeps.
+ */
+public class TimingWheel implements AutoCloseable {
+
+    private final long tickNanos;
+    private final int slotBits;
+    private final int slotMask;
+    // [wheel][slot], each a circular list with a dummy head.
+    private final Timeout[][] wheels;
+    private final long startNanos;
+    private final Thread thread;
+
+    // The last tick that was run. Guarded by this.
+    private long tick = 0;
+    private int size = 0;
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a wheel with 4 wheels of 256 slots, which covers 2^32 ticks.
+     */
+    public TimingWheel(String name, long tickMillis) {
+        this(name, tickMillis, 256, 4);
+    }
+
+    /**
+     * @param slots  Slots per wheel. Rounded up to a power of 2.
+     * @param levels Number of wheels. Delays longer than
+     *               {@code slots ^ levels} ticks still work but get moved
+     *               around more.
+     */
+    public TimingWheel(@NonNull String name, long tickMillis, int slots, int levels) {
+        if (tickMillis <= 0)
+            throw new IllegalArgumentException("Tick length must be positive.");
+        if (slots < 2 || slots > 1 << 16)
+            throw new IllegalArgumentException("Wheels need between 2 and 65536 slots.");
+        if (levels < 1 || (long) levels * (32 - Integer.numberOfLeadingZeros(slots - 1)) >= 62)
+            throw new IllegalArgumentException("Too many wheels.");
+
+        tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        slotBits = 32 - Integer.numberOfLeadingZeros(slots - 1);
+        slotMask = (1 << slotBits) - 1;
+
+        wheels = new Timeout[levels][1 << slotBits];
+        for (Timeout[] wheel : wheels) {
+            for (int slot = 0; slot < wheel.length; slot++)
+                wheel[slot] = Timeout.head();
+        }
+
+        startNanos = System.nanoTime();
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Runs {@code task} on the wheel's thread once {@code delayMillis} have
+     * passed.
+     */
+    public Timeout schedule(long delayMillis, @NonNull Runnable task) {
+        if (delayMillis < 0)
+            throw new IllegalArgumentException("Delay time cannot be negative.");
+        if (closed)
+            throw new IllegalStateException("The timing wheel has been closed.");
+
+        final long due = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        // Round up so that the task never runs early.
+        final long dueTick = (due + tickNanos - 1) / tickNanos;
+        final Timeout timeout = new Timeout(this, task, dueTick);
+
+        final boolean wasEmpty;
+        synchronized (this) {
+            wasEmpty = size == 0;
+            // The thread stops counting ticks while the wheel is empty.
+            if (wasEmpty)
+                tick = Math.max(tick, (System.nanoTime() - startNanos) / tickNanos);
+            // The wheel may have moved on since the tick was worked out.
+            timeout.dueTick = Math.max(dueTick, tick + 1);
+            insert(timeout);
+            size++;
+        }
+        if (wasEmpty)
+            LockSupport.unpark(thread);
+        return timeout;
+    }
+
+    /**
+     * Puts {@code timeout} in the slot of the lowest wheel that reaches its
+     * tick. Called with the lock held.
+     */
+    private void insert(Timeout timeout) {
+        final long dueTick = timeout.dueTick;
+        // 0 for a task moved down on the tick it's due, which then runs in
+        // this tick.
+        final long ticksLeft = Math.max(dueTick - tick, 0);
+
+        int level = 0;
+        while (level < wheels.length - 1 && ticksLeft >= 1L << slotBits * (level + 1))
+            level++;
+
+        final Timeout head = wheels[level][(int) (dueTick >>> slotBits * level) & slotMask];
+        timeout.previous = head.previous;
+        timeout.next = head;
+        head.previous.next = timeout;
+        head.previous = timeout;
+    }
+
+    private synchronized boolean cancel(Timeout timeout) {
+        if (timeout.next == null)
+            return false;
+
+        timeout.previous.next = timeout.next;
+        timeout.next.previous = timeout.previous;
+        timeout.next = null;
+        timeout.previous = null;
+        size--;
+        return true;
+    }
+
+    private void run() {
+        final List<Timeout> due = new ArrayList<>();
+        while (!closed) {
+            final long now = System.nanoTime() - startNanos;
+            final long currentTick = now / tickNanos;
+
+            synchronized (this) {
+                if (size == 0) {
+                    // Nothing can be due, so there's no need to walk the
+                    // ticks that passed.
+                    tick = Math.max(tick, currentTick);
+                } else {
+                    while (tick < currentTick)
+                        advance(due);
+                }
+            }
+
+            for (Timeout timeout : due) {
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    System.err.println("ERROR: Scheduled task failed.");
+                    e.printStackTrace();
+                }
+            }
+            due.clear();
+
+            final boolean empty;
+            synchronized (this) {
+                empty = size == 0;
+            }
+            if (empty)
+                LockSupport.park(this);
+            else
+                LockSupport.parkNanos(this, (currentTick + 1) * tickNanos - (System.nanoTime() - startNanos));
+        }
+    }
+
+    /**
+     * Moves on one tick, adding the tasks that are due to {@code due}.
+     * Called with the lock held.
+     */
+    private void advance(List<Timeout> due) {
+        tick++;
+
+        // Top down, so that tasks moved down a wheel are moved again if
+        // that wheel's slot is also due.
+        for (int level = wheels.length - 1; level > 0; level--) {
+            final long lowerTicks = (1L << slotBits * level) - 1;
+            if ((tick & lowerTicks) != 0)
+                continue;
+
+            final Timeout head = wheels[level][(int) (tick >>> slotBits * level) & slotMask];
+            Timeout timeout = head.next;
+            head.next = head;
+            head.previous = head;
+            while (timeout != head) {
+                final Timeout next = timeout.next;
+                insert(timeout);
+                timeout = next;
+            }
+        }
+
+        final Timeout head = wheels[0][(int) tick & slotMask];
+        Timeout timeout = head.next;
+        while (timeout != head) {
+            final Timeout next = timeout.next;
+            // Tasks past the last wheel wait for it to come round again.
+            if (timeout.dueTick <= tick) {
+                timeout.previous.next = next;
+                next.previous = timeout.previous;
+                timeout.next = null;
+                timeout.previous = null;
+                size--;
+                due.add(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * @return Tasks waiting to run.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    public long getTickMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(tickNanos);
+    }
+
+    /**
+     * Stops the wheel's thread. Tasks that haven't run yet never will.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * A scheduled task.
+     */
+    public static final class Timeout {
+
+        private final TimingWheel wheel;
+        private final Runnable task;
+        private long dueTick;
+        // Neighbours in the slot's list, or null once the task has run or
+        // been cancelled.
+        private Timeout previous;
+        private Timeout next;
+        private volatile boolean cancelled = false;
+
+        private Timeout(TimingWheel wheel, Runnable task, long dueTick) {
+            this.wheel = wheel;
+            this.task = task;
+            this.dueTick = dueTick;
+        }
+
+        private static Timeout head() {
+            final Timeout head = new Timeout(null, null, Long.MAX_VALUE);
+            head.previous = head;
+            head.next = head;
+            return head;
+        }
+
+        /**
+         * Stops the task from running if it hasn't yet.
+         *
+         * @return {@code false} if it already ran or was cancelled.
+         */
+        public boolean cancel() {
+            if (!wheel.cancel(this))
+                return false;
+            cancelled = true;
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+    }
+
+}
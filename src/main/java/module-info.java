@@ -15,8 +15,10 @@ module com.megabyte6.connect4 {
     exports com.megabyte6.connect4;
     exports com.megabyte6.connect4.controller;
     exports com.megabyte6.connect4.controller.dialog;
+    exports com.megabyte6.connect4.engine;
     exports com.megabyte6.connect4.model;
     exports com.megabyte6.connect4.model.colorwrapper;
+    exports com.megabyte6.connect4.render;
     exports com.megabyte6.connect4.util;
     exports com.megabyte6.connect4.util.tuple;
 }